@@ -8,12 +8,17 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 @Aspect
 @Component
 public class VisitCounterAspect {
+    // Адрес, учтенный счетчиком; по нему кэш ответов учитывает посещения при попадании
+    public static final String VISITED_URL_ATTRIBUTE =
+            VisitCounterAspect.class.getName() + ".visitedUrl";
+
     private final VisitCounterService visitCounterService;
 
     public VisitCounterAspect(VisitCounterService visitCounterService) {
@@ -27,6 +32,11 @@ public class VisitCounterAspect {
                 ? resolveUrlFromRequest()
                 : countVisit.value();
 
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(VISITED_URL_ATTRIBUTE, url, RequestAttributes.SCOPE_REQUEST);
+        }
+
         try {
             visitCounterService.incrementCounter(url);
             return joinPoint.proceed();
@@ -1,28 +1,147 @@
 package com.example.library.config;
 
-import com.example.library.model.Author;
-import com.example.library.model.Book;
-import com.example.library.model.Review;
+import com.example.library.model.AuthorSnapshot;
+import com.example.library.model.BookSnapshot;
+import com.example.library.model.CachedResponse;
+import com.example.library.model.ReviewSnapshot;
+import com.example.library.util.AdaptiveCacheSizer;
 import com.example.library.util.CacheUtil;
+import com.example.library.util.HeapPressureMonitor;
+import com.example.library.util.IntKeyCache;
+import com.example.library.util.MemoryFootprint;
 import java.util.List;
+import java.util.function.ToLongFunction;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
+@EnableConfigurationProperties(CacheProperties.class)
 public class CacheConfig {
 
+    public static final String BOOK_CACHE = "book";
+    public static final String AUTHOR_CACHE = "author";
+    public static final String REVIEW_CACHE = "review";
+    public static final String BOOK_MISSING_CACHE = "book-missing";
+    public static final String AUTHOR_MISSING_CACHE = "author-missing";
+    public static final String BOOK_TITLE_INDEX = "book-title";
+    public static final String AUTHOR_BOOKS_INDEX = "author-books";
+    public static final String BOOK_JSON_CACHE = "book-json";
+    public static final String AUTHOR_JSON_CACHE = "author-json";
+    public static final String HTTP_RESPONSE_CACHE = "http-response";
+
+    // Список id в индексе: ArrayList и упакованные Integer
+    private static final ToLongFunction<List<Integer>> ID_LIST_BYTES = ids ->
+            MemoryFootprint.OBJECT_HEADER + MemoryFootprint.REFERENCE + Integer.BYTES
+                    + MemoryFootprint.ofArray(ids.size(), MemoryFootprint.REFERENCE)
+                    + ids.size() * MemoryFootprint.OBJECT_HEADER;
+
+    @Bean
+    public AdaptiveCacheSizer adaptiveCacheSizer(CacheProperties cacheProperties) {
+        CacheProperties.Adaptive adaptive = cacheProperties.getAdaptive();
+        return new AdaptiveCacheSizer(adaptive.getLowWatermark(), adaptive.getHighWatermark());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(name = "library.cache.adaptive.enabled", havingValue = "true",
+            matchIfMissing = true)
+    public HeapPressureMonitor heapPressureMonitor(AdaptiveCacheSizer adaptiveCacheSizer) {
+        return new HeapPressureMonitor(adaptiveCacheSizer::onHeapUsage);
+    }
+
+    @Bean
+    public CacheUtil<Integer, BookSnapshot> bookCacheId(CacheProperties cacheProperties,
+                                                        AdaptiveCacheSizer adaptiveCacheSizer) {
+        return adaptive(new CacheUtil<>(BOOK_CACHE,
+                        cacheProperties.getSpec(BOOK_CACHE).toSettings(), BookSnapshot::weight),
+                cacheProperties, adaptiveCacheSizer, BookSnapshot::estimatedBytes);
+    }
+
+    @Bean
+    public CacheUtil<Integer, AuthorSnapshot> authorCacheId(
+            CacheProperties cacheProperties, AdaptiveCacheSizer adaptiveCacheSizer) {
+        return adaptive(new CacheUtil<>(AUTHOR_CACHE,
+                        cacheProperties.getSpec(AUTHOR_CACHE).toSettings()),
+                cacheProperties, adaptiveCacheSizer, AuthorSnapshot::estimatedBytes);
+    }
+
+    @Bean
+    public CacheUtil<Integer, List<ReviewSnapshot>> reviewCacheId(
+            CacheProperties cacheProperties, AdaptiveCacheSizer adaptiveCacheSizer) {
+        return adaptive(new CacheUtil<>(REVIEW_CACHE,
+                        cacheProperties.getSpec(REVIEW_CACHE).toSettings(),
+                        reviews -> Math.max(1, reviews.size())),
+                cacheProperties, adaptiveCacheSizer, reviews -> MemoryFootprint.ofArray(
+                        reviews.size(), MemoryFootprint.REFERENCE)
+                        + reviews.stream().mapToLong(ReviewSnapshot::estimatedBytes).sum());
+    }
+
+    @Bean
+    public IntKeyCache<Boolean> bookMissingCacheId(CacheProperties cacheProperties) {
+        return IntKeyCache.of(BOOK_MISSING_CACHE,
+                cacheProperties.getSpec(BOOK_MISSING_CACHE).toSettings());
+    }
+
     @Bean
-    public CacheUtil<Integer, Book> bookCacheId() {
-        return new CacheUtil<>(10);
+    public IntKeyCache<Boolean> authorMissingCacheId(CacheProperties cacheProperties) {
+        return IntKeyCache.of(AUTHOR_MISSING_CACHE,
+                cacheProperties.getSpec(AUTHOR_MISSING_CACHE).toSettings());
     }
 
     @Bean
-    public CacheUtil<Integer, Author> authorCacheId() {
-        return new CacheUtil<>(10);
+    public CacheUtil<String, List<Integer>> bookTitleIndex(
+            CacheProperties cacheProperties, AdaptiveCacheSizer adaptiveCacheSizer) {
+        return adaptive(new CacheUtil<>(BOOK_TITLE_INDEX,
+                        cacheProperties.getSpec(BOOK_TITLE_INDEX).toSettings()),
+                cacheProperties, adaptiveCacheSizer, ID_LIST_BYTES);
     }
 
     @Bean
-    public CacheUtil<Integer, List<Review>> reviewCacheId() {
-        return new CacheUtil<>(5);
+    public CacheUtil<String, List<Integer>> authorBooksIndex(
+            CacheProperties cacheProperties, AdaptiveCacheSizer adaptiveCacheSizer) {
+        return adaptive(new CacheUtil<>(AUTHOR_BOOKS_INDEX,
+                        cacheProperties.getSpec(AUTHOR_BOOKS_INDEX).toSettings()),
+                cacheProperties, adaptiveCacheSizer, ID_LIST_BYTES);
+    }
+
+    // Вес JSON-фрагмента - его размер в байтах
+    @Bean
+    public CacheUtil<Integer, byte[]> bookJsonCacheId(CacheProperties cacheProperties,
+                                                      AdaptiveCacheSizer adaptiveCacheSizer) {
+        return adaptive(new CacheUtil<>(BOOK_JSON_CACHE,
+                        cacheProperties.getSpec(BOOK_JSON_CACHE).toSettings(),
+                        json -> json.length),
+                cacheProperties, adaptiveCacheSizer,
+                json -> MemoryFootprint.ofArray(json.length, Byte.BYTES));
+    }
+
+    @Bean
+    public CacheUtil<Integer, byte[]> authorJsonCacheId(CacheProperties cacheProperties,
+                                                        AdaptiveCacheSizer adaptiveCacheSizer) {
+        return adaptive(new CacheUtil<>(AUTHOR_JSON_CACHE,
+                        cacheProperties.getSpec(AUTHOR_JSON_CACHE).toSettings(),
+                        json -> json.length),
+                cacheProperties, adaptiveCacheSizer,
+                json -> MemoryFootprint.ofArray(json.length, Byte.BYTES));
+    }
+
+    @Bean
+    public CacheUtil<String, CachedResponse> responseCacheId(
+            CacheProperties cacheProperties, AdaptiveCacheSizer adaptiveCacheSizer) {
+        return adaptive(new CacheUtil<>(HTTP_RESPONSE_CACHE,
+                        cacheProperties.getSpec(HTTP_RESPONSE_CACHE).toSettings(),
+                        CachedResponse::weight),
+                cacheProperties, adaptiveCacheSizer, CachedResponse::estimatedBytes);
+    }
+
+    // Нижняя граница емкости при нехватке памяти задается minimum-capacity-ratio кэша
+    private static <K, V> CacheUtil<K, V> adaptive(CacheUtil<K, V> cache,
+                                                   CacheProperties cacheProperties,
+                                                   AdaptiveCacheSizer adaptiveCacheSizer,
+                                                   ToLongFunction<? super V> entryBytes) {
+        adaptiveCacheSizer.register(cache,
+                cacheProperties.getSpec(cache.getName()).getMinimumCapacityRatio(), entryBytes);
+        return cache;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+package com.example.library.config;
+
+import com.example.library.util.InvalidationTransport;
+import com.example.library.util.LoopbackInvalidationTransport;
+import com.example.library.util.PostgresInvalidationTransport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheInvalidationConfig {
+
+    private static final String TRANSPORT_PROPERTY = "library.cache.invalidation.transport";
+
+    @Bean
+    @ConditionalOnProperty(name = TRANSPORT_PROPERTY, havingValue = "loopback",
+            matchIfMissing = true)
+    public InvalidationTransport loopbackInvalidationTransport() {
+        return new LoopbackInvalidationTransport();
+    }
+
+    @Bean(initMethod = "start")
+    @ConditionalOnProperty(name = TRANSPORT_PROPERTY, havingValue = "postgres")
+    public PostgresInvalidationTransport postgresInvalidationTransport(
+            DataSource dataSource,
+            ObjectMapper objectMapper,
+            @Value("${library.cache.invalidation.channel:library_cache_invalidation}")
+            String channel) {
+        return new PostgresInvalidationTransport(dataSource, objectMapper, channel);
+    }
+}
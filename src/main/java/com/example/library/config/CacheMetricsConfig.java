@@ -0,0 +1,85 @@
+package com.example.library.config;
+
+import com.example.library.util.AdaptiveCacheSizer;
+import com.example.library.util.CacheStats;
+import com.example.library.util.CacheUtil;
+import com.example.library.util.IntKeyCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheMetricsConfig {
+
+    @Bean
+    public MeterBinder cacheMetrics(List<CacheUtil<?, ?>> caches,
+                                    List<IntKeyCache<?>> intKeyCaches,
+                                    AdaptiveCacheSizer adaptiveCacheSizer) {
+        return registry -> {
+            caches.forEach(cache -> {
+                bind(registry, cache.getName(), cache::stats);
+                bindCapacity(registry, cache, adaptiveCacheSizer);
+            });
+            intKeyCaches.forEach(cache -> bind(registry, cache.getName(), cache::stats));
+        };
+    }
+
+    private static void bindCapacity(MeterRegistry registry, CacheUtil<?, ?> cache,
+                                     AdaptiveCacheSizer adaptiveCacheSizer) {
+        Tags tags = Tags.of("cache", cache.getName());
+
+        Gauge.builder("cache.capacity.scale", cache, CacheUtil::getCapacityScale)
+                .tags(tags)
+                .description("Доля заданной емкости, действующая с учетом нехватки памяти")
+                .register(registry);
+        Gauge.builder("cache.retained.bytes", adaptiveCacheSizer,
+                        sizer -> sizer.estimateRetainedBytes(cache.getName()))
+                .tags(tags)
+                .baseUnit("bytes")
+                .description("Оценка памяти, занятой записями кэша")
+                .register(registry);
+    }
+
+    private static void bind(MeterRegistry registry, String name, Supplier<CacheStats> cache) {
+        Tags tags = Tags.of("cache", name);
+
+        FunctionCounter.builder("cache.gets", cache, c -> c.get().hitCount())
+                .tags(tags).tag("result", "hit")
+                .description("Число обращений, найденных в кэше")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", cache, c -> c.get().missCount())
+                .tags(tags).tag("result", "miss")
+                .description("Число обращений, не найденных в кэше")
+                .register(registry);
+        FunctionCounter.builder("cache.load", cache, c -> c.get().loadSuccessCount())
+                .tags(tags).tag("result", "success")
+                .description("Число успешных загрузок значений")
+                .register(registry);
+        FunctionCounter.builder("cache.load", cache, c -> c.get().loadFailureCount())
+                .tags(tags).tag("result", "failure")
+                .description("Число загрузок, завершившихся ошибкой")
+                .register(registry);
+        FunctionTimer.builder("cache.load.duration", cache,
+                        c -> c.get().loadSuccessCount() + c.get().loadFailureCount(),
+                        c -> c.get().totalLoadTimeNanos(), TimeUnit.NANOSECONDS)
+                .tags(tags)
+                .description("Время загрузки значений в кэш")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", cache, c -> c.get().evictionCount())
+                .tags(tags)
+                .description("Число записей, вытесненных по размеру или времени жизни")
+                .register(registry);
+        Gauge.builder("cache.size", cache, c -> c.get().size())
+                .tags(tags)
+                .description("Текущее число записей в кэше")
+                .register(registry);
+    }
+}
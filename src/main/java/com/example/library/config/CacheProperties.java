@@ -0,0 +1,335 @@
+package com.example.library.config;
+
+import com.example.library.util.CacheSettings;
+import com.example.library.util.EvictionMode;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "library.cache")
+public class CacheProperties {
+
+    private static final long DEFAULT_MAXIMUM_SIZE = 1000;
+
+    private Map<String, Spec> specs = new HashMap<>();
+    private WarmUp warmUp = new WarmUp();
+    private Response response = new Response();
+    private Snapshot snapshot = new Snapshot();
+    private Adaptive adaptive = new Adaptive();
+    private HotKeys hotKeys = new HotKeys();
+
+    public Map<String, Spec> getSpecs() {
+        return specs;
+    }
+
+    public void setSpecs(Map<String, Spec> specs) {
+        this.specs = specs;
+    }
+
+    public Spec getSpec(String cacheName) {
+        return specs.getOrDefault(cacheName, new Spec());
+    }
+
+    public WarmUp getWarmUp() {
+        return warmUp;
+    }
+
+    public void setWarmUp(WarmUp warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    public Response getResponse() {
+        return response;
+    }
+
+    public void setResponse(Response response) {
+        this.response = response;
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(Snapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public Adaptive getAdaptive() {
+        return adaptive;
+    }
+
+    public void setAdaptive(Adaptive adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    public HotKeys getHotKeys() {
+        return hotKeys;
+    }
+
+    public void setHotKeys(HotKeys hotKeys) {
+        this.hotKeys = hotKeys;
+    }
+
+    public static class HotKeys {
+        private boolean enabled = true;
+        private Duration interval = Duration.ofSeconds(30);
+        private int maximumPinned = 100;
+        private double minimumVisits = 50;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+
+        public int getMaximumPinned() {
+            return maximumPinned;
+        }
+
+        public void setMaximumPinned(int maximumPinned) {
+            this.maximumPinned = maximumPinned;
+        }
+
+        public double getMinimumVisits() {
+            return minimumVisits;
+        }
+
+        public void setMinimumVisits(double minimumVisits) {
+            this.minimumVisits = minimumVisits;
+        }
+    }
+
+    public static class Adaptive {
+        private boolean enabled = true;
+        private double lowWatermark = 0.5;
+        private double highWatermark = 0.75;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getLowWatermark() {
+            return lowWatermark;
+        }
+
+        public void setLowWatermark(double lowWatermark) {
+            this.lowWatermark = lowWatermark;
+        }
+
+        public double getHighWatermark() {
+            return highWatermark;
+        }
+
+        public void setHighWatermark(double highWatermark) {
+            this.highWatermark = highWatermark;
+        }
+    }
+
+    public static class Snapshot {
+        private boolean enabled = true;
+        private String file = "./data/cache-snapshot.bin";
+        private Duration interval = Duration.ofMinutes(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+    }
+
+    public static class Response {
+        private boolean enabled = true;
+        private boolean etags = true;
+        private Duration maxAge = Duration.ZERO;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isEtags() {
+            return etags;
+        }
+
+        public void setEtags(boolean etags) {
+            this.etags = etags;
+        }
+
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+
+        public void setMaxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+        }
+    }
+
+    public static class WarmUp {
+        private boolean enabled = true;
+        private Duration timeBudget = Duration.ofSeconds(10);
+        private int maximumEntries = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getTimeBudget() {
+            return timeBudget;
+        }
+
+        public void setTimeBudget(Duration timeBudget) {
+            this.timeBudget = timeBudget;
+        }
+
+        public int getMaximumEntries() {
+            return maximumEntries;
+        }
+
+        public void setMaximumEntries(int maximumEntries) {
+            this.maximumEntries = maximumEntries;
+        }
+    }
+
+    public static class Spec {
+        private EvictionMode eviction = EvictionMode.TINY_LFU;
+        private long maximumSize;
+        private long maximumWeight;
+        private Duration expireAfterWrite;
+        private Duration expireAfterAccess;
+        private Duration refreshAfterWrite;
+        private Duration staleWhileRevalidate;
+        private Duration staleIfError;
+        private Duration loadTimeout;
+        // Читается только при создании кэша, как и регистрация в AdaptiveCacheSizer
+        private double minimumCapacityRatio = 1.0;
+
+        public CacheSettings toSettings() {
+            long size = maximumSize == 0 && maximumWeight == 0
+                    ? DEFAULT_MAXIMUM_SIZE
+                    : maximumSize;
+            return new CacheSettings(eviction, size, maximumWeight,
+                    expireAfterWrite, expireAfterAccess, refreshAfterWrite,
+                    staleWhileRevalidate, staleIfError, loadTimeout);
+        }
+
+        public EvictionMode getEviction() {
+            return eviction;
+        }
+
+        public void setEviction(EvictionMode eviction) {
+            this.eviction = eviction;
+        }
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public long getMaximumWeight() {
+            return maximumWeight;
+        }
+
+        public void setMaximumWeight(long maximumWeight) {
+            this.maximumWeight = maximumWeight;
+        }
+
+        public Duration getExpireAfterWrite() {
+            return expireAfterWrite;
+        }
+
+        public void setExpireAfterWrite(Duration expireAfterWrite) {
+            this.expireAfterWrite = expireAfterWrite;
+        }
+
+        public Duration getExpireAfterAccess() {
+            return expireAfterAccess;
+        }
+
+        public void setExpireAfterAccess(Duration expireAfterAccess) {
+            this.expireAfterAccess = expireAfterAccess;
+        }
+
+        public Duration getRefreshAfterWrite() {
+            return refreshAfterWrite;
+        }
+
+        public void setRefreshAfterWrite(Duration refreshAfterWrite) {
+            this.refreshAfterWrite = refreshAfterWrite;
+        }
+
+        public Duration getStaleWhileRevalidate() {
+            return staleWhileRevalidate;
+        }
+
+        public void setStaleWhileRevalidate(Duration staleWhileRevalidate) {
+            this.staleWhileRevalidate = staleWhileRevalidate;
+        }
+
+        public Duration getStaleIfError() {
+            return staleIfError;
+        }
+
+        public void setStaleIfError(Duration staleIfError) {
+            this.staleIfError = staleIfError;
+        }
+
+        public Duration getLoadTimeout() {
+            return loadTimeout;
+        }
+
+        public void setLoadTimeout(Duration loadTimeout) {
+            this.loadTimeout = loadTimeout;
+        }
+
+        public double getMinimumCapacityRatio() {
+            return minimumCapacityRatio;
+        }
+
+        public void setMinimumCapacityRatio(double minimumCapacityRatio) {
+            this.minimumCapacityRatio = minimumCapacityRatio;
+        }
+    }
+}
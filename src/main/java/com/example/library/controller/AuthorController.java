@@ -9,19 +9,23 @@ import com.example.library.exception.ResourceNotFoundException;
 import com.example.library.mapper.AuthorMapper;
 import com.example.library.mapper.BookMapper;
 import com.example.library.model.Author;
-import com.example.library.model.Book;
+import com.example.library.model.AuthorSnapshot;
+import com.example.library.model.BookSnapshot;
 import com.example.library.service.AuthorService;
+import com.example.library.service.BookService;
+import com.example.library.service.JsonFragmentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -38,15 +42,20 @@ import org.springframework.web.bind.annotation.RestController;
 public class AuthorController {
 
     private final AuthorService authorService;
+    private final BookService bookService;
     private final AuthorMapper authorMapper;
     private final BookMapper bookMapper;
+    private final JsonFragmentService jsonFragmentService;
 
     @Autowired
-    public AuthorController(AuthorService authorService,
-                            AuthorMapper authorMapper, BookMapper bookMapper) {
+    public AuthorController(AuthorService authorService, BookService bookService,
+                            AuthorMapper authorMapper, BookMapper bookMapper,
+                            JsonFragmentService jsonFragmentService) {
         this.authorService = authorService;
+        this.bookService = bookService;
         this.authorMapper = authorMapper;
         this.bookMapper = bookMapper;
+        this.jsonFragmentService = jsonFragmentService;
     }
 
     @PostMapping
@@ -90,20 +99,28 @@ public class AuthorController {
     @CountVisit
     @Operation(
             summary = "Получить всех авторов",
-            description = "Возвращает список всех авторов",
+            description = "Возвращает страницу авторов по возрастанию id",
             responses = {   @ApiResponse(
                             responseCode = "200",
                             description = "Успешный запрос",
                             content = @Content(schema = @Schema(implementation = AuthorDto.class)))
             }
     )
-    public ResponseEntity<List<AuthorDto>> getAll() {
+    public ResponseEntity<byte[]> getAll(
+            @RequestParam(defaultValue = "0")
+            @Parameter(description = "Id последней записи предыдущей страницы", example = "0")
+            int after,
+
+            @RequestParam(defaultValue = KeysetPage.DEFAULT_LIMIT)
+            @Parameter(description = "Размер страницы, не больше 500", example = "50")
+            int limit) {
+        KeysetPage.validate(after, limit);
         try {
-            List<Author> authors = authorService.readAll();
-            List<AuthorDto> authorDtos = authors.stream()
-                    .map(authorMapper::toDto)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(authorDtos);
+            long readMark = jsonFragmentService.readMark();
+            List<Author> authors = authorService.readPage(after, limit);
+            return KeysetPage.ok(authors, limit, Author::getId)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(jsonFragmentService.renderAuthors(authors, readMark));
         } catch (Exception ex) {
             throw new InternalServerErrorException("Internal server error", ex);
         }
@@ -129,7 +146,7 @@ public class AuthorController {
             int id) {
 
         try {
-            Author author = authorService.findById(id);
+            AuthorSnapshot author = authorService.findById(id);
             AuthorDto authorDto = authorMapper.toDto(author);
             return ResponseEntity.ok(authorDto);
         } catch (ResourceNotFoundException ex) {
@@ -255,23 +272,27 @@ public class AuthorController {
                             description = "Автор не найден")
             }
     )
-    @Transactional(readOnly = true)
     public ResponseEntity<List<BookDto>> getAuthorBooks(
             @PathVariable
             @Parameter(description = "ID автора", example = "1")
             int id) {
 
         try {
-            Author author = authorService.findById(id);
-            List<Book> books = author.getBooks();
+            AuthorSnapshot author = authorService.findById(id);
 
-            if (books == null || books.isEmpty()) {
+            if (author.getBookCount() == 0) {
                 throw new BadRequestException("У автора с ID " + id + " нет связанных книг");
             }
 
-            List<BookDto> bookDtos = books.stream()
-                    .map(bookMapper::toDto)
-                    .collect(Collectors.toList());
+            // Книга могла быть удалена после того, как снимок автора попал в кэш
+            List<Integer> bookIds = new ArrayList<>(author.getBookCount());
+            for (int i = 0; i < author.getBookCount(); i++) {
+                bookIds.add(author.getBookId(i));
+            }
+            List<BookDto> bookDtos = new ArrayList<>(bookIds.size());
+            for (BookSnapshot book : bookService.findAllById(bookIds)) {
+                bookDtos.add(bookMapper.toDto(book));
+            }
 
             return ResponseEntity.ok(bookDtos);
         } catch (ResourceNotFoundException ex) {
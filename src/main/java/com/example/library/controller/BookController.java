@@ -8,8 +8,11 @@ import com.example.library.exception.ResourceNotFoundException;
 import com.example.library.mapper.BookMapper;
 import com.example.library.model.Author;
 import com.example.library.model.Book;
+import com.example.library.model.BookSnapshot;
 import com.example.library.model.Review;
+import com.example.library.service.BookExportService;
 import com.example.library.service.BookService;
+import com.example.library.service.JsonFragmentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -21,6 +24,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -31,6 +35,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/books")
@@ -38,12 +43,17 @@ import org.springframework.web.bind.annotation.RestController;
 public class BookController {
 
     private final BookService bookService;
+    private final BookExportService bookExportService;
     private final BookMapper bookMapper;
+    private final JsonFragmentService jsonFragmentService;
 
     @Autowired
-    public BookController(BookService bookService, BookMapper bookMapper) {
+    public BookController(BookService bookService, BookExportService bookExportService,
+                          BookMapper bookMapper, JsonFragmentService jsonFragmentService) {
         this.bookService = bookService;
+        this.bookExportService = bookExportService;
         this.bookMapper = bookMapper;
+        this.jsonFragmentService = jsonFragmentService;
     }
 
     @PostMapping
@@ -92,15 +102,34 @@ public class BookController {
 
     @GetMapping
     @CountVisit("/books")
-    @Operation(summary = "Получить все книги", description = "Возвращает список всех книг")
+    @Operation(summary = "Получить все книги",
+            description = "Возвращает страницу книг по возрастанию id")
     @ApiResponse(responseCode = "200", description = "Успешный запрос",
             content = @Content(schema = @Schema(implementation = BookDto.class)))
-    public ResponseEntity<List<BookDto>> getAll() {
-        List<Book> books = bookService.readAll();
-        List<BookDto> bookDtos = books.stream()
-                .map(bookMapper::toDto)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(bookDtos);
+    public ResponseEntity<byte[]> getAll(
+            @RequestParam(defaultValue = "0")
+            @Parameter(description = "Id последней записи предыдущей страницы", example = "0")
+            int after,
+
+            @RequestParam(defaultValue = KeysetPage.DEFAULT_LIMIT)
+            @Parameter(description = "Размер страницы, не больше 500", example = "50")
+            int limit) {
+        KeysetPage.validate(after, limit);
+        long readMark = jsonFragmentService.readMark();
+        List<Book> books = bookService.readPage(after, limit);
+        return KeysetPage.ok(books, limit, Book::getId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(jsonFragmentService.renderBooks(books, readMark));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Выгрузить все книги",
+            description = "Построчно отдает все книги с авторами и отзывами в формате NDJSON")
+    @ApiResponse(responseCode = "200", description = "Выгрузка начата")
+    public ResponseEntity<StreamingResponseBody> export() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(bookExportService::exportBooks);
     }
 
     @GetMapping("/{id}")
@@ -110,7 +139,7 @@ public class BookController {
             content = @Content(schema = @Schema(implementation = BookDto.class)))
     @ApiResponse(responseCode = "404", description = "Книга не найдена")
     public ResponseEntity<BookDto> getBookById(@PathVariable int id) {
-        Book book = bookService.findById(id);
+        BookSnapshot book = bookService.findById(id);
 
         if (book == null) {
             throw new ResourceNotFoundException(
@@ -128,7 +157,7 @@ public class BookController {
             @Parameter(description = "Название книги для поиска", example = "Animal Farm")
             String title) {
 
-        Book book = bookService.findByTitle(title);
+        BookSnapshot book = bookService.findByTitle(title);
 
         if (book == null) {
             throw new ResourceNotFoundException(
@@ -147,19 +176,23 @@ public class BookController {
             content = @Content(schema = @Schema(implementation = BookDto.class)))
     @ApiResponse(responseCode = "404", description = "Книга не найдена")
     public ResponseEntity<List<BookDto>> getBooksByReviewMessageContaining(
-            @RequestParam String message) {
+            @RequestParam String message,
 
-        List<Book> books = bookService.findBooksByReviewMessageContaining(message);
+            @RequestParam(defaultValue = "0")
+            @Parameter(description = "Id последней записи предыдущей страницы", example = "0")
+            int after,
 
-        if (books != null && !books.isEmpty()) {
-            List<BookDto> bookDtos = books.stream()
-                    .map(bookMapper::toDto)
-                    .collect(Collectors.toList());
+            @RequestParam(defaultValue = KeysetPage.DEFAULT_LIMIT)
+            @Parameter(description = "Размер страницы, не больше 500", example = "50")
+            int limit) {
+        KeysetPage.validate(after, limit);
+        List<Book> books = bookService.findBooksByReviewMessageContaining(message, after, limit);
 
-            return ResponseEntity.ok(bookDtos);
-        } else {
-            return ResponseEntity.notFound().build();
-        }
+        List<BookDto> bookDtos = books.stream()
+                .map(bookMapper::toDto)
+                .collect(Collectors.toList());
+
+        return KeysetPage.ok(books, limit, Book::getId).body(bookDtos);
     }
 
     @GetMapping("/search/by-author")
@@ -176,14 +209,24 @@ public class BookController {
 
             @RequestParam
             @Parameter(description = "Фамилия автора", example = "Orwell")
-            String surname) {
-        List<Book> books = bookService.findBooksByAuthorNameAndSurnameNative(name, surname);
+            String surname,
+
+            @RequestParam(defaultValue = "0")
+            @Parameter(description = "Id последней записи предыдущей страницы", example = "0")
+            int after,
+
+            @RequestParam(defaultValue = KeysetPage.DEFAULT_LIMIT)
+            @Parameter(description = "Размер страницы, не больше 500", example = "50")
+            int limit) {
+        KeysetPage.validate(after, limit);
+        List<BookSnapshot> books = bookService.findBooksByAuthorNameAndSurnameNative(name, surname,
+                after, limit);
 
         List<BookDto> bookDtos = books.stream()
                 .map(bookMapper::toDto)
                 .collect(Collectors.toList());
 
-        return ResponseEntity.ok(bookDtos);
+        return KeysetPage.ok(books, limit, BookSnapshot::getId).body(bookDtos);
     }
 
     @PutMapping("/{id}")
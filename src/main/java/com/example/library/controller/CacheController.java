@@ -0,0 +1,71 @@
+package com.example.library.controller;
+
+import com.example.library.config.CacheProperties;
+import com.example.library.service.CacheManagementService;
+import com.example.library.service.HotKeyService;
+import com.example.library.util.CacheSettings;
+import com.example.library.util.CacheStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+    private final CacheManagementService cacheManagementService;
+    private final HotKeyService hotKeyService;
+
+    public CacheController(CacheManagementService cacheManagementService,
+                           HotKeyService hotKeyService) {
+        this.cacheManagementService = cacheManagementService;
+        this.hotKeyService = hotKeyService;
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Получить статистику всех кэшей")
+    public ResponseEntity<Map<String, CacheStats>> getStats() {
+        return ResponseEntity.ok(cacheManagementService.getStats());
+    }
+
+    @GetMapping("/{name}/stats")
+    @Operation(summary = "Получить статистику кэша")
+    public ResponseEntity<CacheStats> getStats(
+            @PathVariable @Parameter(description = "Имя кэша", example = "book") String name) {
+        return ResponseEntity.ok(cacheManagementService.getStats(name));
+    }
+
+    @GetMapping("/pinned")
+    @Operation(summary = "Получить закрепленные в кэшах популярные ключи")
+    public ResponseEntity<Map<String, Set<Integer>>> getPinnedKeys() {
+        return ResponseEntity.ok(hotKeyService.getPinnedKeys());
+    }
+
+    @GetMapping("/settings")
+    @Operation(summary = "Получить настройки кэшей")
+    public ResponseEntity<Map<String, CacheSettings>> getSettings() {
+        return ResponseEntity.ok(cacheManagementService.getSettings());
+    }
+
+    @PutMapping("/{name}/settings")
+    @Operation(summary = "Изменить настройки кэша во время работы")
+    public ResponseEntity<CacheSettings> updateSettings(
+            @PathVariable @Parameter(description = "Имя кэша", example = "book") String name,
+            @RequestBody CacheProperties.Spec spec) {
+        return ResponseEntity.ok(cacheManagementService.updateSettings(name, spec));
+    }
+
+    @PostMapping("/settings/reload")
+    @Operation(summary = "Перечитать настройки кэшей из конфигурации")
+    public ResponseEntity<Map<String, CacheSettings>> reloadSettings() {
+        return ResponseEntity.ok(cacheManagementService.reloadSettings());
+    }
+}
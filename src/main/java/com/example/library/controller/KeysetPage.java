@@ -0,0 +1,46 @@
+package com.example.library.controller;
+
+import com.example.library.exception.BadRequestException;
+import com.example.library.exception.ErrorMessages;
+import java.util.List;
+import java.util.function.ToIntFunction;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * Параметры постраничной выдачи по ключу: страница содержит не более limit записей с id
+ * больше after. Если страница заполнена, в заголовке Link отдается ссылка на следующую
+ * страницу с after, равным id последней записи.
+ */
+final class KeysetPage {
+    static final String DEFAULT_LIMIT = "50";
+    static final int MAX_LIMIT = 500;
+
+    private KeysetPage() {
+    }
+
+    static void validate(int after, int limit) {
+        if (after < 0) {
+            throw new BadRequestException(ErrorMessages.PAGE_AFTER_NEGATIVE);
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException(
+                    String.format(ErrorMessages.PAGE_LIMIT_OUT_OF_RANGE, MAX_LIMIT));
+        }
+    }
+
+    static <T> ResponseEntity.BodyBuilder ok(List<T> page, int limit, ToIntFunction<T> idOf) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        // Неполная страница - последняя, ссылки дальше нет
+        if (page.size() == limit) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", idOf.applyAsInt(page.get(page.size() - 1)))
+                    .replaceQueryParam("limit", limit)
+                    .build()
+                    .toUriString();
+            builder.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return builder;
+    }
+}
@@ -4,6 +4,7 @@ import com.example.library.annotation.CountVisit;
 import com.example.library.dto.ReviewDto;
 import com.example.library.mapper.ReviewMapper;
 import com.example.library.model.Review;
+import com.example.library.model.ReviewSnapshot;
 import com.example.library.service.ReviewService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -22,6 +23,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -74,7 +76,7 @@ public class ReviewController {
     @CountVisit
     @Operation(
             summary = "Получить отзывы книги",
-            description = "Возвращает все отзывы для указанной книги",
+            description = "Возвращает страницу отзывов для указанной книги",
             responses = {   @ApiResponse(
                             responseCode = "200",
                             description = "Успешный запрос",
@@ -87,15 +89,23 @@ public class ReviewController {
     public ResponseEntity<List<ReviewDto>> getReviewsByBookId(
             @PathVariable
             @Parameter(description = "ID книги", example = "1")
-            int bookId) {
+            int bookId,
+
+            @RequestParam(defaultValue = "0")
+            @Parameter(description = "Id последней записи предыдущей страницы", example = "0")
+            int after,
 
-        List<Review> reviews = reviewService.getReviewsByBookId(bookId);
+            @RequestParam(defaultValue = KeysetPage.DEFAULT_LIMIT)
+            @Parameter(description = "Размер страницы, не больше 500", example = "50")
+            int limit) {
+        KeysetPage.validate(after, limit);
+        List<ReviewSnapshot> reviews = reviewService.getReviewsByBookId(bookId, after, limit);
 
         List<ReviewDto> reviewDtos = reviews.stream()
                 .map(reviewMapper::toDto)
                 .collect(Collectors.toList());
 
-        return ResponseEntity.ok(reviewDtos);
+        return KeysetPage.ok(reviews, limit, ReviewSnapshot::id).body(reviewDtos);
     }
 
     @GetMapping("/{id}")
@@ -10,6 +10,11 @@ public abstract class BaseException extends RuntimeException {
         this.httpStatus = httpStatus;
     }
 
+    protected BaseException(String message, HttpStatus httpStatus, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+        this.httpStatus = httpStatus;
+    }
+
     public HttpStatus getHttpStatus() {
         return httpStatus;
     }
@@ -34,8 +34,16 @@ public final class ErrorMessages {
             "Author surname must start with capital letter and contain"
                     + " only letters, spaces or hyphens";
 
+    public static final String CACHE_NOT_FOUND =
+            String.format(ENTITY_NOT_FOUND, "Cache", "name", "%s");
+    public static final String SERIALIZATION_FAILED = "Failed to serialize %s with id %s";
+
     public static final String LIST_CANNOT_BE_NULL_OR_EMPTY = "%s cannot be null or empty";
     public static final String BOOK_AUTHORS_EMPTY = "is empty";
 
+    public static final String PAGE_AFTER_NEGATIVE = "Parameter 'after' must not be negative";
+    public static final String PAGE_LIMIT_OUT_OF_RANGE =
+            "Parameter 'limit' must be between 1 and %s";
+
     private ErrorMessages() {}
 }
\ No newline at end of file
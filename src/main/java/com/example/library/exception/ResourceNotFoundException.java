@@ -3,7 +3,8 @@ package com.example.library.exception;
 import org.springframework.http.HttpStatus;
 
 public class ResourceNotFoundException extends BaseException {
+    // Ответ 404 не требует стека вызовов, а его заполнение заметно дороже самой проверки
     public ResourceNotFoundException(String message) {
-        super(message, HttpStatus.NOT_FOUND);
+        super(message, HttpStatus.NOT_FOUND, false);
     }
 }
\ No newline at end of file
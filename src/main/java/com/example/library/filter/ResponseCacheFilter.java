@@ -0,0 +1,144 @@
+package com.example.library.filter;
+
+import com.example.library.aspect.VisitCounterAspect;
+import com.example.library.config.CacheProperties;
+import com.example.library.model.CachedResponse;
+import com.example.library.service.ResponseCacheService;
+import com.example.library.service.VisitCounterService;
+import com.example.library.util.StaleReads;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * Отдает GET-ответы по книгам, авторам и отзывам из {@link ResponseCacheService}, не
+ * доходя до контроллеров. Ключ - метод, путь, строка запроса и заголовок Accept.
+ * Ответы по отдельным сущностям получают ETag по версиям строк в базе, и If-None-Match
+ * с актуальным ETag отвечается 304 без загрузки сущностей. Попадание в кэш и 304 по-прежнему
+ * учитываются счетчиком посещений. Ответ, собранный из истекших записей кэша, помечается
+ * заголовком Warning и не сохраняется.
+ */
+@Component
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final String CACHE_STATUS_HEADER = "X-Cache";
+    private static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
+    private final ResponseCacheService responseCacheService;
+    private final VisitCounterService visitCounterService;
+    private final CacheProperties.Response settings;
+
+    public ResponseCacheFilter(ResponseCacheService responseCacheService,
+                               VisitCounterService visitCounterService,
+                               CacheProperties cacheProperties) {
+        this.responseCacheService = responseCacheService;
+        this.visitCounterService = visitCounterService;
+        this.settings = cacheProperties.getResponse();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !settings.isEnabled() && !settings.isEtags()
+                || !HttpMethod.GET.matches(request.getMethod())
+                || ResponseCacheService.tagsFor(pathOf(request)) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = pathOf(request);
+        String key = cacheKey(request, path);
+        String[] tags = ResponseCacheService.tagsFor(path);
+        // Версии тегов и ETag фиксируются до обработки: изменение во время запроса не даст
+        // сохранить ответ, а его ETag не совпадет с актуальным
+        long[] versions = responseCacheService.tagVersions(tags);
+        CachedResponse cached = settings.isEnabled() ? responseCacheService.get(key) : null;
+        String etag = null;
+        if (settings.isEtags()) {
+            etag = cached != null ? cached.etag() : responseCacheService.etag(path);
+        }
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        // На * отвечаем 304 только при попадании: сохраненный ответ подтверждает, что
+        // ресурс существует
+        boolean notModified = ResponseCacheService.matchesAny(ifNoneMatch, etag)
+                || cached != null && ResponseCacheService.isWildcard(ifNoneMatch);
+        if (etag != null && notModified) {
+            visitCounterService.incrementCounter(cached != null && cached.visitUrl() != null
+                    ? cached.visitUrl()
+                    : request.getRequestURI());
+            writeHeaders(response, System.currentTimeMillis(), etag, null);
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        if (cached != null) {
+            if (cached.visitUrl() != null) {
+                visitCounterService.incrementCounter(cached.visitUrl());
+            }
+            writeHeaders(response, cached.createdAtMillis(), etag, "HIT");
+            if (cached.link() != null) {
+                response.setHeader(HttpHeaders.LINK, cached.link());
+            }
+            response.setContentType(cached.contentType());
+            response.setContentLength(cached.body().length);
+            response.getOutputStream().write(cached.body());
+            return;
+        }
+
+        long createdAt = System.currentTimeMillis();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        StaleReads.reset();
+        filterChain.doFilter(request, wrapper);
+        boolean stale = StaleReads.reset();
+
+        if (stale) {
+            writeHeaders(wrapper, createdAt, null, "STALE");
+            wrapper.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+            wrapper.setHeader(HttpHeaders.WARNING, STALE_WARNING);
+        } else if (wrapper.getStatus() == HttpServletResponse.SC_OK) {
+            if (settings.isEnabled()) {
+                Object visitUrl = request.getAttribute(VisitCounterAspect.VISITED_URL_ATTRIBUTE);
+                responseCacheService.put(key, new CachedResponse(wrapper.getContentType(),
+                        wrapper.getContentAsByteArray(), createdAt,
+                        visitUrl == null ? null : visitUrl.toString(),
+                        wrapper.getHeader(HttpHeaders.LINK), tags, versions, etag));
+            }
+            writeHeaders(wrapper, createdAt, etag, settings.isEnabled() ? "MISS" : null);
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private void writeHeaders(HttpServletResponse response, long createdAtMillis, String etag,
+                              String cacheStatus) {
+        long age = Math.max(0, (System.currentTimeMillis() - createdAtMillis) / 1000);
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                "max-age=" + settings.getMaxAge().toSeconds());
+        response.setHeader(HttpHeaders.AGE, Long.toString(age));
+        // add, а не set: Vary: Origin уже выставлен CorsHeaderFilter
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (etag != null) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+        }
+        if (cacheStatus != null) {
+            response.setHeader(CACHE_STATUS_HEADER, cacheStatus);
+        }
+    }
+
+    private static String cacheKey(HttpServletRequest request, String path) {
+        String query = request.getQueryString();
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return "GET " + path + (query == null ? "" : "?" + query)
+                + " " + (accept == null ? "*/*" : accept);
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.library.filter;
+
+import com.example.library.util.SqlStatementCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Записывает число SQL-запросов, выполненных при обработке запроса, в метрику
+ * http.server.sql.statements с тегами method и uri (шаблон пути эндпоинта). Ответы, не
+ * дошедшие до контроллера, например из кэша ответов, не учитываются.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SqlStatementCountFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatementCountFilter.class);
+
+    private final MeterRegistry meterRegistry;
+
+    public SqlStatementCountFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatementCounter.reset();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int statements = SqlStatementCounter.reset();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (pattern != null) {
+                DistributionSummary.builder("http.server.sql.statements")
+                        .tag("method", request.getMethod())
+                        .tag("uri", pattern.toString())
+                        .register(meterRegistry)
+                        .record(statements);
+                logger.debug("{} {} executed {} SQL statements", request.getMethod(), pattern,
+                        statements);
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.library.mapper;
 
 import com.example.library.dto.AuthorDto;
 import com.example.library.model.Author;
+import com.example.library.model.AuthorSnapshot;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -15,6 +16,14 @@ public class AuthorMapper {
         return authorDto;
     }
 
+    public AuthorDto toDto(AuthorSnapshot author) {
+        AuthorDto authorDto = new AuthorDto();
+        authorDto.setId(author.getId());
+        authorDto.setName(author.getName());
+        authorDto.setSurname(author.getSurname());
+        return authorDto;
+    }
+
     public Author toEntity(AuthorDto authorDto) {
         Author author = new Author();
         author.setId(authorDto.getId());
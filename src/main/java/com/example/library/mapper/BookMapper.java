@@ -1,7 +1,12 @@
 package com.example.library.mapper;
 
+import com.example.library.dto.AuthorDto;
 import com.example.library.dto.BookDto;
+import com.example.library.dto.ReviewDto;
 import com.example.library.model.Book;
+import com.example.library.model.BookSnapshot;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -42,6 +47,33 @@ public class BookMapper {
         return bookDto;
     }
 
+    public BookDto toDto(BookSnapshot book) {
+        BookDto bookDto = new BookDto();
+        bookDto.setId(book.getId());
+        bookDto.setTitle(book.getTitle());
+
+        List<AuthorDto> authors = new ArrayList<>(book.getAuthorCount());
+        for (int i = 0; i < book.getAuthorCount(); i++) {
+            AuthorDto authorDto = new AuthorDto();
+            authorDto.setId(book.getAuthorId(i));
+            authorDto.setName(book.getAuthorName(i));
+            authorDto.setSurname(book.getAuthorSurname(i));
+            authors.add(authorDto);
+        }
+        bookDto.setAuthors(authors);
+
+        List<ReviewDto> reviews = new ArrayList<>(book.getReviewCount());
+        for (int i = 0; i < book.getReviewCount(); i++) {
+            ReviewDto reviewDto = new ReviewDto();
+            reviewDto.setId(book.getReviewId(i));
+            reviewDto.setMessage(book.getReviewMessage(i));
+            reviews.add(reviewDto);
+        }
+        bookDto.setReviews(reviews);
+
+        return bookDto;
+    }
+
     public Book toEntity(BookDto bookDto) {
         Book book = new Book();
         book.setId(bookDto.getId());
@@ -2,6 +2,7 @@ package com.example.library.mapper;
 
 import com.example.library.dto.ReviewDto;
 import com.example.library.model.Review;
+import com.example.library.model.ReviewSnapshot;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -14,6 +15,13 @@ public class ReviewMapper {
         return reviewDto;
     }
 
+    public ReviewDto toDto(ReviewSnapshot review) {
+        ReviewDto reviewDto = new ReviewDto();
+        reviewDto.setId(review.id());
+        reviewDto.setMessage(review.message());
+        return reviewDto;
+    }
+
     public Review toEntity(ReviewDto reviewDto) {
         Review review = new Review();
         review.setId(reviewDto.getId());
@@ -11,9 +11,13 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToMany;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.SequenceGenerator;
 import java.util.List;
 
 @Entity
+@NamedEntityGraph(name = "Author.books", attributeNodes = @NamedAttributeNode("books"))
 @Schema(description = "Сущность автора")
 @JsonIdentityInfo(
         generator = ObjectIdGenerators.PropertyGenerator.class,
@@ -22,7 +26,8 @@ import java.util.List;
 public class Author {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "author_seq")
+    @SequenceGenerator(name = "author_seq", sequenceName = "author_id_seq", allocationSize = 50)
     @Schema(description = "Уникальный идентификатор автора", example = "1")
     private int id;
 
@@ -32,7 +37,7 @@ public class Author {
     @Schema(description = "Фамилия автора", example = "Толстой")
     private String surname;
 
-    @ManyToMany(mappedBy = "authors", fetch = FetchType.EAGER)
+    @ManyToMany(mappedBy = "authors", fetch = FetchType.LAZY)
     //@JsonIgnore
     @JsonBackReference
     @Schema(description = "Список книг автора")
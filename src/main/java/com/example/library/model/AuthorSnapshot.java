@@ -0,0 +1,92 @@
+package com.example.library.model;
+
+import com.example.library.util.MemoryFootprint;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Неизменяемый снимок автора для кэша: вместо списка сущностей книг хранит только их id.
+ * Версия строк, из которых собран снимок, известна, только если его прочитал загрузчик.
+ */
+public final class AuthorSnapshot {
+
+    private final int id;
+    private final String name;
+    private final String surname;
+    private final int[] bookIds;
+    private final String version;
+
+    private AuthorSnapshot(int id, String name, String surname, int[] bookIds,
+                           String version) {
+        this.id = id;
+        this.name = name;
+        this.surname = surname;
+        this.version = version;
+        this.bookIds = bookIds;
+    }
+
+    public static AuthorSnapshot of(Author author) {
+        return of(author, null);
+    }
+
+    // version читается до автора, как в BookSnapshot.of
+    public static AuthorSnapshot of(Author author, String version) {
+        List<Book> books = author.getBooks() == null ? List.of() : author.getBooks();
+        int[] bookIds = books.stream().mapToInt(Book::getId).toArray();
+        return new AuthorSnapshot(author.getId(), intern(author.getName()),
+                intern(author.getSurname()), bookIds, version);
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(id);
+        SnapshotCodec.writeString(out, name);
+        SnapshotCodec.writeString(out, surname);
+        SnapshotCodec.writeInts(out, bookIds);
+        SnapshotCodec.writeString(out, version);
+    }
+
+    public static AuthorSnapshot readFrom(DataInput in) throws IOException {
+        int id = in.readInt();
+        String name = intern(SnapshotCodec.readString(in));
+        String surname = intern(SnapshotCodec.readString(in));
+        int[] bookIds = SnapshotCodec.readInts(in);
+        return new AuthorSnapshot(id, name, surname, bookIds, SnapshotCodec.readString(in));
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSurname() {
+        return surname;
+    }
+
+    public int getBookCount() {
+        return bookIds.length;
+    }
+
+    public int getBookId(int index) {
+        return bookIds[index];
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public long estimatedBytes() {
+        return MemoryFootprint.OBJECT_HEADER + 4 * MemoryFootprint.REFERENCE
+                + MemoryFootprint.ofString(name) + MemoryFootprint.ofString(surname)
+                + MemoryFootprint.ofString(version)
+                + MemoryFootprint.ofArray(bookIds.length, Integer.BYTES);
+    }
+
+    private static String intern(String value) {
+        return value == null ? null : value.intern();
+    }
+}
@@ -14,10 +14,14 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import java.util.List;
 
 @Entity
+@NamedEntityGraph(name = "Book.authors", attributeNodes = @NamedAttributeNode("authors"))
 @Schema(description = "Сущность книги")
 @JsonIdentityInfo(
         generator = ObjectIdGenerators.PropertyGenerator.class,
@@ -26,7 +30,8 @@ import java.util.List;
 public class Book {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_id_seq", allocationSize = 50)
     @Schema(description = "Уникальный идентификатор книги", example = "1")
     private int id;
 
@@ -34,7 +39,7 @@ public class Book {
     private String title;
 
     @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE, CascadeType.REFRESH,
-                           CascadeType.DETACH}, fetch = FetchType.EAGER)
+                           CascadeType.DETACH}, fetch = FetchType.LAZY)
     @JsonIgnoreProperties("books")
     @JsonManagedReference
     @JoinTable(
@@ -46,7 +51,7 @@ public class Book {
     private List<Author> authors;
 
     @OneToMany(mappedBy = "book", cascade = CascadeType.ALL,
-            orphanRemoval = true, fetch = FetchType.EAGER)
+            orphanRemoval = true, fetch = FetchType.LAZY)
     @Schema(description = "Список отзывов о книге")
     private List<Review> reviews;
 
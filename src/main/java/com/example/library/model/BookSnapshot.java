@@ -0,0 +1,187 @@
+package com.example.library.model;
+
+import com.example.library.util.MemoryFootprint;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Неизменяемый снимок книги для кэша. В отличие от сущности не держит ссылок на другие
+ * сущности и коллекции Hibernate: авторы и отзывы хранятся параллельными массивами,
+ * имена авторов интернируются, так как повторяются во многих книгах. Массивы наружу
+ * не отдаются, поэтому снимок можно читать из любого потока без сессии. Версия строк,
+ * из которых собран снимок, известна, только если он прочитан загрузчиком кэша.
+ */
+public final class BookSnapshot {
+
+    private static final int[] NO_IDS = new int[0];
+    private static final String[] NO_STRINGS = new String[0];
+
+    private final int id;
+    private final String title;
+    private final int[] authorIds;
+    private final String[] authorNames;
+    private final String[] authorSurnames;
+    private final int[] reviewIds;
+    private final String[] reviewMessages;
+    private final String version;
+
+    private BookSnapshot(int id, String title, int[] authorIds, String[] authorNames,
+                         String[] authorSurnames, int[] reviewIds, String[] reviewMessages,
+                         String version) {
+        this.id = id;
+        this.title = title;
+        this.authorIds = authorIds;
+        this.authorNames = authorNames;
+        this.authorSurnames = authorSurnames;
+        this.reviewIds = reviewIds;
+        this.reviewMessages = reviewMessages;
+        this.version = version;
+    }
+
+    public static BookSnapshot of(Book book) {
+        return of(book, book.getReviews());
+    }
+
+    /**
+     * Строит снимок по книге и отдельно загруженным отзывам; так загрузчик кэша обходится
+     * без ленивой загрузки коллекции отзывов вне сессии.
+     */
+    public static BookSnapshot of(Book book, List<Review> bookReviews) {
+        return of(book, bookReviews, null);
+    }
+
+    /**
+     * version - версия строк (см. EntityVersion), прочитанная до книги и отзывов: если
+     * они изменились между запросами, снимок получит старую версию и будет признан
+     * устаревшим, а не наоборот.
+     */
+    public static BookSnapshot of(Book book, List<Review> bookReviews, String version) {
+        List<Author> authors = book.getAuthors() == null ? List.of() : book.getAuthors();
+        int[] authorIds = authors.isEmpty() ? NO_IDS : new int[authors.size()];
+        String[] authorNames = authors.isEmpty() ? NO_STRINGS : new String[authors.size()];
+        String[] authorSurnames = authors.isEmpty() ? NO_STRINGS : new String[authors.size()];
+        for (int i = 0; i < authors.size(); i++) {
+            Author author = authors.get(i);
+            authorIds[i] = author.getId();
+            authorNames[i] = intern(author.getName());
+            authorSurnames[i] = intern(author.getSurname());
+        }
+
+        List<Review> reviews = bookReviews == null ? List.of() : bookReviews;
+        int[] reviewIds = reviews.isEmpty() ? NO_IDS : new int[reviews.size()];
+        String[] reviewMessages = reviews.isEmpty() ? NO_STRINGS : new String[reviews.size()];
+        for (int i = 0; i < reviews.size(); i++) {
+            reviewIds[i] = reviews.get(i).getId();
+            reviewMessages[i] = reviews.get(i).getMessage();
+        }
+
+        return new BookSnapshot(book.getId(), book.getTitle(), authorIds, authorNames,
+                authorSurnames, reviewIds, reviewMessages, version);
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(id);
+        SnapshotCodec.writeString(out, title);
+        out.writeInt(authorIds.length);
+        for (int i = 0; i < authorIds.length; i++) {
+            out.writeInt(authorIds[i]);
+            SnapshotCodec.writeString(out, authorNames[i]);
+            SnapshotCodec.writeString(out, authorSurnames[i]);
+        }
+        out.writeInt(reviewIds.length);
+        for (int i = 0; i < reviewIds.length; i++) {
+            out.writeInt(reviewIds[i]);
+            SnapshotCodec.writeString(out, reviewMessages[i]);
+        }
+        SnapshotCodec.writeString(out, version);
+    }
+
+    public static BookSnapshot readFrom(DataInput in) throws IOException {
+        int id = in.readInt();
+        String title = SnapshotCodec.readString(in);
+        int authorCount = in.readInt();
+        int[] authorIds = authorCount == 0 ? NO_IDS : new int[authorCount];
+        String[] authorNames = authorCount == 0 ? NO_STRINGS : new String[authorCount];
+        String[] authorSurnames = authorCount == 0 ? NO_STRINGS : new String[authorCount];
+        for (int i = 0; i < authorCount; i++) {
+            authorIds[i] = in.readInt();
+            authorNames[i] = intern(SnapshotCodec.readString(in));
+            authorSurnames[i] = intern(SnapshotCodec.readString(in));
+        }
+        int reviewCount = in.readInt();
+        int[] reviewIds = reviewCount == 0 ? NO_IDS : new int[reviewCount];
+        String[] reviewMessages = reviewCount == 0 ? NO_STRINGS : new String[reviewCount];
+        for (int i = 0; i < reviewCount; i++) {
+            reviewIds[i] = in.readInt();
+            reviewMessages[i] = SnapshotCodec.readString(in);
+        }
+        String version = SnapshotCodec.readString(in);
+        return new BookSnapshot(id, title, authorIds, authorNames, authorSurnames,
+                reviewIds, reviewMessages, version);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public int getAuthorCount() {
+        return authorIds.length;
+    }
+
+    public int getAuthorId(int index) {
+        return authorIds[index];
+    }
+
+    public String getAuthorName(int index) {
+        return authorNames[index];
+    }
+
+    public String getAuthorSurname(int index) {
+        return authorSurnames[index];
+    }
+
+    public int getReviewCount() {
+        return reviewIds.length;
+    }
+
+    public int getReviewId(int index) {
+        return reviewIds[index];
+    }
+
+    public String getReviewMessage(int index) {
+        return reviewMessages[index];
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    /** Вес записи в кэше: сама книга плюс ее авторы и отзывы. */
+    public int weight() {
+        return 1 + authorIds.length + reviewIds.length;
+    }
+
+    /** Оценка памяти снимка; интернированные имена авторов общие и не учитываются. */
+    public long estimatedBytes() {
+        long bytes = MemoryFootprint.OBJECT_HEADER + 7 * MemoryFootprint.REFERENCE
+                + MemoryFootprint.ofString(title) + MemoryFootprint.ofString(version)
+                + MemoryFootprint.ofArray(authorIds.length, Integer.BYTES)
+                + 2 * MemoryFootprint.ofArray(authorIds.length, MemoryFootprint.REFERENCE)
+                + MemoryFootprint.ofArray(reviewIds.length, Integer.BYTES)
+                + MemoryFootprint.ofArray(reviewIds.length, MemoryFootprint.REFERENCE);
+        for (String message : reviewMessages) {
+            bytes += MemoryFootprint.ofString(message);
+        }
+        return bytes;
+    }
+
+    private static String intern(String value) {
+        return value == null ? null : value.intern();
+    }
+}
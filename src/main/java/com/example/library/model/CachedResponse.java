@@ -0,0 +1,32 @@
+package com.example.library.model;
+
+import com.example.library.util.MemoryFootprint;
+
+/**
+ * Сохраненный ответ GET-запроса. Вместе с телом хранятся теги, от которых зависит ответ,
+ * и их версии на момент начала обработки запроса, адрес, под которым запрос учитывается
+ * счетчиком посещений, заголовок Link со ссылкой на следующую страницу и ETag, если
+ * он был выдан.
+ */
+public record CachedResponse(String contentType, byte[] body, long createdAtMillis,
+                             String visitUrl, String link, String[] tags,
+                             long[] tagVersions, String etag) {
+
+    /** Вес записи в кэше - размер тела в байтах. */
+    public int weight() {
+        return Math.max(1, body.length);
+    }
+
+    public long estimatedBytes() {
+        long bytes = MemoryFootprint.OBJECT_HEADER + 8 * MemoryFootprint.REFERENCE + Long.BYTES
+                + MemoryFootprint.ofArray(body.length, Byte.BYTES)
+                + MemoryFootprint.ofString(contentType) + MemoryFootprint.ofString(visitUrl)
+                + MemoryFootprint.ofString(link) + MemoryFootprint.ofString(etag)
+                + MemoryFootprint.ofArray(tagVersions.length, Long.BYTES)
+                + MemoryFootprint.ofArray(tags.length, MemoryFootprint.REFERENCE);
+        for (String tag : tags) {
+            bytes += MemoryFootprint.ofString(tag);
+        }
+        return bytes;
+    }
+}
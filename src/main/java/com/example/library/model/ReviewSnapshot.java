@@ -0,0 +1,18 @@
+package com.example.library.model;
+
+import com.example.library.util.MemoryFootprint;
+
+/**
+ * Неизменяемый снимок отзыва для кэша, без ссылки на книгу.
+ */
+public record ReviewSnapshot(int id, String message) {
+
+    public static ReviewSnapshot of(Review review) {
+        return new ReviewSnapshot(review.getId(), review.getMessage());
+    }
+
+    public long estimatedBytes() {
+        return MemoryFootprint.OBJECT_HEADER + Integer.BYTES + MemoryFootprint.REFERENCE
+                + MemoryFootprint.ofString(message);
+    }
+}
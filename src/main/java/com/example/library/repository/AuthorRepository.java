@@ -1,10 +1,39 @@
 package com.example.library.repository;
 
 import com.example.library.model.Author;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface AuthorRepository extends JpaRepository<Author, Integer> {
     Author findByNameAndSurname(String name, String surname);
+
+    // Пары задаются двумя массивами одной длины: names[i] и surnames[i]
+    @Query(value = "SELECT a.* FROM author a WHERE (a.name, a.surname) IN"
+            + " (SELECT * FROM unnest(CAST(:names AS text[]), CAST(:surnames AS text[])))",
+            nativeQuery = true)
+    List<Author> findByNameAndSurnamePairs(@Param("names") String[] names,
+                                           @Param("surnames") String[] surnames);
+
+    @EntityGraph("Author.books")
+    Optional<Author> findWithBooksById(int id);
+
+    @Query("SELECT a.id FROM Author a")
+    List<Integer> findAllIds();
+
+    List<Author> findByIdGreaterThanOrderById(int id, Limit limit);
+
+    // Меняется при изменении автора и его связей с книгами
+    @Query(value = "SELECT a.id AS id, md5(CAST(a.xmin AS text)"
+            + " || '|' || COALESCE((SELECT string_agg(CAST(ba.xmin AS text), ','"
+            + " ORDER BY ba.book_id) FROM book_author ba WHERE ba.author_id = a.id), ''))"
+            + " AS version FROM author a WHERE a.id IN (:ids)", nativeQuery = true)
+    List<EntityVersion> findSnapshotVersions(@Param("ids") Collection<Integer> ids);
 }
\ No newline at end of file
@@ -1,10 +1,17 @@
 package com.example.library.repository;
 
 import com.example.library.model.Book;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -12,9 +19,58 @@ import org.springframework.stereotype.Repository;
 public interface BookRepository extends JpaRepository<Book, Integer> {
     Optional<Book> findByTitle(String title);
 
-    @Query("SELECT DISTINCT b FROM Book b JOIN b.reviews r"
-            + " WHERE LOWER(r.message) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-    List<Book> findBooksByReviewMessageContaining(@Param("keyword") String keyword);
+    // Отзывы не входят в граф: два списка нельзя получить одним запросом
+    @EntityGraph("Book.authors")
+    Optional<Book> findWithAuthorsById(int id);
+
+    @EntityGraph("Book.authors")
+    List<Book> findWithAuthorsByIdIn(Collection<Integer> ids);
+
+    @Query("SELECT b.id FROM Book b")
+    List<Integer> findAllIds();
+
+    // Постраничная выдача по ключу: страница начинается после id, без OFFSET
+    List<Book> findByIdGreaterThanOrderById(int id, Limit limit);
+
+    // Курсор с порционной выборкой; читать только внутри транзакции, иначе драйвер
+    // PostgreSQL получит весь результат сразу
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    Stream<Book> streamAllByOrderById();
+
+    // Меняется при изменении книги, ее авторов, связей с ними и ее отзывов
+    String SNAPSHOT_VERSIONS = "SELECT b.id AS id, md5(CAST(b.xmin AS text)"
+            + " || '|' || COALESCE((SELECT string_agg("
+            + "CAST(ba.xmin AS text) || ':' || CAST(a.xmin AS text), ',' ORDER BY a.id)"
+            + " FROM book_author ba JOIN author a ON a.id = ba.author_id"
+            + " WHERE ba.book_id = b.id), '')"
+            + " || '|' || COALESCE((SELECT string_agg(CAST(r.xmin AS text), ',' ORDER BY r.id)"
+            + " FROM review r WHERE r.book_id = b.id), '')) AS version FROM book b";
+
+    @Query(value = SNAPSHOT_VERSIONS + " WHERE b.id IN (:ids)", nativeQuery = true)
+    List<EntityVersion> findSnapshotVersions(@Param("ids") Collection<Integer> ids);
+
+    @Query(value = SNAPSHOT_VERSIONS + " WHERE b.id IN"
+            + " (SELECT ba.book_id FROM book_author ba WHERE ba.author_id = :authorId)"
+            + " ORDER BY b.id", nativeQuery = true)
+    List<EntityVersion> findSnapshotVersionsByAuthorId(@Param("authorId") int authorId);
+
+    @Query("SELECT b.id FROM Book b WHERE LOWER(TRIM(b.title)) = :normalizedTitle")
+    List<Integer> findIdsByNormalizedTitle(@Param("normalizedTitle") String normalizedTitle);
+
+    @Query(value = "SELECT DISTINCT ba.book_id FROM book_author ba "
+            + "JOIN author a ON ba.author_id = a.id "
+            + "WHERE LOWER(a.name) = :name AND LOWER(a.surname) = :surname "
+            + "ORDER BY ba.book_id", nativeQuery = true)
+    List<Integer> findIdsByNormalizedAuthorName(@Param("name") String name,
+                                                @Param("surname") String surname);
+
+    // Без графа: с выборкой коллекции Hibernate применил бы limit в памяти
+    @Query("SELECT b FROM Book b WHERE b.id > :after AND EXISTS (SELECT r FROM Review r"
+            + " WHERE r.book = b AND LOWER(r.message) LIKE LOWER(CONCAT('%', :keyword, '%')))"
+            + " ORDER BY b.id")
+    List<Book> findBooksByReviewMessageContaining(@Param("keyword") String keyword,
+                                                  @Param("after") int after, Limit limit);
 
     @Query(value = "SELECT b.* FROM book b "
             + "JOIN book_author ba ON b.id = ba.book_id "
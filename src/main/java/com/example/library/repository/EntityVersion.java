@@ -0,0 +1,24 @@
+package com.example.library.repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Версия строки сущности вместе со связанными строками, из которых собирается ее снимок
+ * в кэше. Строится из системного столбца xmin PostgreSQL, который меняется при каждом
+ * обновлении строки, поэтому отдельный столбец версии в схеме не нужен.
+ */
+public interface EntityVersion {
+    Integer getId();
+
+    String getVersion();
+
+    static Map<Integer, String> toMap(Collection<EntityVersion> versions) {
+        Map<Integer, String> map = new HashMap<>(versions.size() * 2);
+        for (EntityVersion version : versions) {
+            map.put(version.getId(), version.getVersion());
+        }
+        return map;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.library.repository;
 
 import com.example.library.model.Review;
+import java.util.Collection;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
@@ -8,4 +9,6 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Integer> {
     List<Review> findByBookId(int bookId);
+
+    List<Review> findByBookIdIn(Collection<Integer> bookIds);
 }
\ No newline at end of file
@@ -5,9 +5,14 @@ import com.example.library.exception.ErrorMessages;
 import com.example.library.exception.InvalidProperNameException;
 import com.example.library.exception.ResourceNotFoundException;
 import com.example.library.model.Author;
+import com.example.library.model.AuthorSnapshot;
 import com.example.library.model.Book;
+import com.example.library.model.BookSnapshot;
+import com.example.library.model.ReviewSnapshot;
 import com.example.library.repository.AuthorRepository;
 import com.example.library.repository.BookRepository;
+import com.example.library.repository.EntityVersion;
+import com.example.library.util.AfterCommit;
 import com.example.library.util.CacheUtil;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -15,6 +20,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,17 +29,30 @@ public class AuthorService {
 
     private final AuthorRepository authorRepository;
     private final BookRepository bookRepository;
-    private final CacheUtil<Integer, Author> authorCacheId;
+    private final CacheUtil<Integer, AuthorSnapshot> authorCacheId;
+    private final CacheUtil<Integer, BookSnapshot> bookCacheId;
+    private final CacheUtil<Integer, List<ReviewSnapshot>> reviewCacheId;
+    private final NegativeLookupService negativeLookupService;
+    private final SecondaryIndexService secondaryIndexService;
 
     private static final String AUTHOR_ENTITY_NAME = "Author";
 
     @Autowired
     public AuthorService(AuthorRepository authorRepository,
-                         BookRepository bookRepository, CacheUtil<Integer,
-                    Author> authorCacheId) {
+                         BookRepository bookRepository,
+                         CacheUtil<Integer, AuthorSnapshot> authorCacheId,
+                         CacheUtil<Integer, BookSnapshot> bookCacheId,
+                         CacheUtil<Integer, List<ReviewSnapshot>> reviewCacheId,
+                         NegativeLookupService negativeLookupService,
+                         SecondaryIndexService secondaryIndexService) {
         this.authorRepository = authorRepository;
         this.bookRepository = bookRepository;
         this.authorCacheId = authorCacheId;
+        this.bookCacheId = bookCacheId;
+        this.reviewCacheId = reviewCacheId;
+        this.negativeLookupService = negativeLookupService;
+        this.secondaryIndexService = secondaryIndexService;
+        this.authorCacheId.setLoader(this::loadAuthor);
     }
 
     void validateAuthorName(String name, String fieldName) {
@@ -85,6 +104,10 @@ public class AuthorService {
             book.getAuthors().add(existingAuthor);
             existingAuthor.getBooks().add(book);
             bookRepository.save(book);
+            secondaryIndexService.invalidateAuthor(existingAuthor.getName(),
+                    existingAuthor.getSurname());
+            invalidateAuthorAfterCommit(existingAuthor.getId());
+            invalidateBookAfterCommit(bookId);
             return existingAuthor;
         }
 
@@ -92,28 +115,38 @@ public class AuthorService {
         book.getAuthors().add(author);
 
         Author savedAuthor = authorRepository.save(author);
-        authorCacheId.put(savedAuthor.getId(), savedAuthor);
+        secondaryIndexService.invalidateAuthor(savedAuthor.getName(), savedAuthor.getSurname());
+        cacheAfterCommit(savedAuthor);
+        invalidateBookAfterCommit(bookId);
         return savedAuthor;
     }
 
-    public List<Author> readAll() {
-        return authorRepository.findAll();
+    public List<Author> readPage(int after, int limit) {
+        return authorRepository.findByIdGreaterThanOrderById(after, Limit.of(limit));
     }
 
-    public Author findById(int id) {
-        Author cachedAuthor = authorCacheId.get(id);
-        if (cachedAuthor != null) {
-            return cachedAuthor;
+    public AuthorSnapshot findById(int id) {
+        if (negativeLookupService.isMissingAuthor(id)) {
+            throw new ResourceNotFoundException(ErrorMessages.AUTHOR_NOT_FOUND.formatted(id));
+        }
+        AuthorSnapshot author = authorCacheId.computeIfAbsent(id, this::loadAuthor);
+        if (author == null) {
+            negativeLookupService.markAuthorMissing(id);
+            throw new ResourceNotFoundException(ErrorMessages.AUTHOR_NOT_FOUND.formatted(id));
         }
-
-        Author author = authorRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException(
-                        ErrorMessages.AUTHOR_NOT_FOUND.formatted(id)));
-
-        authorCacheId.put(id, author);
         return author;
     }
 
+    // Книги читаются графом сразу: загрузчик вызывается и из фоновых потоков без сессии.
+    // Версия строк читается первой, см. BookSnapshot.of
+    private AuthorSnapshot loadAuthor(Integer id) {
+        String version = EntityVersion.toMap(
+                authorRepository.findSnapshotVersions(List.of(id))).get(id);
+        return authorRepository.findWithBooksById(id)
+                .map(author -> AuthorSnapshot.of(author, version))
+                .orElse(null);
+    }
+
     @Transactional
     public Author update(int id, Author author) {
         if (author == null) {
@@ -130,12 +163,20 @@ public class AuthorService {
         Author existingAuthor = authorRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(
                         ErrorMessages.AUTHOR_NOT_FOUND.formatted(id)));
+        secondaryIndexService.invalidateAuthor(existingAuthor.getName(),
+                existingAuthor.getSurname());
         existingAuthor.setName(author.getName());
         existingAuthor.setSurname(author.getSurname());
 
         Author updatedAuthor = authorRepository.save(existingAuthor);
+        secondaryIndexService.invalidateAuthor(updatedAuthor.getName(),
+                updatedAuthor.getSurname());
 
-        authorCacheId.put(id, updatedAuthor);
+        cacheAfterCommit(updatedAuthor);
+        // Снимки книг содержат имя автора
+        if (updatedAuthor.getBooks() != null) {
+            updatedAuthor.getBooks().forEach(book -> invalidateBookAfterCommit(book.getId()));
+        }
         return updatedAuthor;
     }
 
@@ -152,11 +193,16 @@ public class AuthorService {
 
             if (book.getAuthors().isEmpty()) {
                 bookRepository.delete(book);
+                secondaryIndexService.invalidateTitle(book.getTitle());
+                Integer bookId = book.getId();
+                AfterCommit.run(() -> reviewCacheId.invalidate(bookId));
             }
+            invalidateBookAfterCommit(book.getId());
         }
 
         authorRepository.delete(author);
-        authorCacheId.evict(authorId);
+        secondaryIndexService.invalidateAuthor(author.getName(), author.getSurname());
+        invalidateAuthorAfterCommit(authorId);
         return true;
     }
 
@@ -171,7 +217,7 @@ public class AuthorService {
                 .orElseThrow(() -> new ResourceNotFoundException(
                         ErrorMessages.BOOK_NOT_FOUND.formatted(bookId)));
 
-        return authors.stream()
+        List<Author> result = authors.stream()
                 .peek(author -> {
                     if (author == null) {
                         throw new BadRequestException(ErrorMessages.ENTITY_CANNOT_BE_NULL
@@ -197,16 +243,41 @@ public class AuthorService {
                         book.getAuthors().add(existingAuthor);
                         existingAuthor.getBooks().add(book);
                         bookRepository.save(book);
+                        secondaryIndexService.invalidateAuthor(existingAuthor.getName(),
+                                existingAuthor.getSurname());
+                        invalidateAuthorAfterCommit(existingAuthor.getId());
                         return existingAuthor;
                     } else {
                         author.getBooks().add(book);
                         book.getAuthors().add(author);
                         Author savedAuthor = authorRepository.save(author);
-                        authorCacheId.put(savedAuthor.getId(), savedAuthor);
+                        secondaryIndexService.invalidateAuthor(savedAuthor.getName(),
+                                savedAuthor.getSurname());
+                        cacheAfterCommit(savedAuthor);
                         return savedAuthor;
                     }
                 })
                 .collect(Collectors.toList());
+        invalidateBookAfterCommit(bookId);
+        return result;
+    }
+
+    // Снимок строится сразу, пока сущность привязана к сессии; в кэш он попадет только
+    // после фиксации транзакции
+    private void cacheAfterCommit(Author savedAuthor) {
+        Integer id = savedAuthor.getId();
+        AuthorSnapshot snapshot = AuthorSnapshot.of(savedAuthor);
+        AfterCommit.run(() -> {
+            authorCacheId.invalidate(id);
+            authorCacheId.put(id, snapshot);
+        });
     }
 
-}
\ No newline at end of file
+    private void invalidateAuthorAfterCommit(Integer authorId) {
+        AfterCommit.run(() -> authorCacheId.invalidate(authorId));
+    }
+
+    private void invalidateBookAfterCommit(Integer bookId) {
+        AfterCommit.run(() -> bookCacheId.invalidate(bookId));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.library.service;
+
+import com.example.library.mapper.BookMapper;
+import com.example.library.model.Book;
+import com.example.library.repository.BookRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Выгрузка всех книг с авторами и отзывами в формате NDJSON: по одному BookDto в строке.
+ * Книги читаются курсором и обрабатываются порциями: авторы и отзывы порции подгружаются
+ * пакетными запросами, после записи порция уходит из контекста сохранения, поэтому
+ * расход памяти не зависит от размера каталога.
+ */
+@Service
+public class BookExportService {
+    public static final String EXPORT_PATH = "/books/export";
+    // Совпадает с hibernate.default_batch_fetch_size: связи порции грузятся одним запросом
+    static final int CHUNK_SIZE = 50;
+
+    private final BookRepository bookRepository;
+    private final BookMapper bookMapper;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    public BookExportService(BookRepository bookRepository, BookMapper bookMapper,
+                             ObjectMapper objectMapper, EntityManager entityManager) {
+        this.bookRepository = bookRepository;
+        this.bookMapper = bookMapper;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+    }
+
+    @Transactional(readOnly = true)
+    public void exportBooks(OutputStream out) throws IOException {
+        List<Book> chunk = new ArrayList<>(CHUNK_SIZE);
+        try (Stream<Book> books = bookRepository.streamAllByOrderById()) {
+            Iterator<Book> iterator = books.iterator();
+            // hasNext() уже читает следующую строку, поэтому порция записывается и
+            // очищается до него, иначе clear() отсоединил бы прочитанную книгу
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == CHUNK_SIZE) {
+                    writeChunk(chunk, out);
+                    chunk.clear();
+                }
+            }
+        }
+        writeChunk(chunk, out);
+    }
+
+    private void writeChunk(List<Book> chunk, OutputStream out) throws IOException {
+        for (Book book : chunk) {
+            out.write(objectMapper.writeValueAsBytes(bookMapper.toDto(book)));
+            out.write('\n');
+        }
+        out.flush();
+        entityManager.clear();
+    }
+}
@@ -4,19 +4,29 @@ import com.example.library.exception.BadRequestException;
 import com.example.library.exception.ErrorMessages;
 import com.example.library.exception.ResourceNotFoundException;
 import com.example.library.model.Author;
+import com.example.library.model.AuthorSnapshot;
 import com.example.library.model.Book;
+import com.example.library.model.BookSnapshot;
 import com.example.library.model.Review;
+import com.example.library.model.ReviewSnapshot;
 import com.example.library.repository.AuthorRepository;
 import com.example.library.repository.BookRepository;
+import com.example.library.repository.EntityVersion;
 import com.example.library.repository.ReviewRepository;
+import com.example.library.util.AfterCommit;
 import com.example.library.util.CacheUtil;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,22 +36,29 @@ public class BookService {
     private final BookRepository bookRepository;
     private final AuthorRepository authorRepository;
     private final ReviewRepository reviewRepository;
-    private final CacheUtil<Integer, Book> bookCacheId;
-    private final CacheUtil<Integer, Author> authorCacheId;
-    private final CacheUtil<Integer, List<Review>> reviewCacheId;
+    private final CacheUtil<Integer, BookSnapshot> bookCacheId;
+    private final CacheUtil<Integer, AuthorSnapshot> authorCacheId;
+    private final CacheUtil<Integer, List<ReviewSnapshot>> reviewCacheId;
+    private final NegativeLookupService negativeLookupService;
+    private final SecondaryIndexService secondaryIndexService;
 
     @Autowired
     public BookService(BookRepository bookRepository, AuthorRepository authorRepository,
                        ReviewRepository reviewRepository,
-                       CacheUtil<Integer, Book> bookCacheId,
-                       CacheUtil<Integer, Author> authorCacheId,
-                       CacheUtil<Integer, List<Review>> reviewCacheId) {
+                       CacheUtil<Integer, BookSnapshot> bookCacheId,
+                       CacheUtil<Integer, AuthorSnapshot> authorCacheId,
+                       CacheUtil<Integer, List<ReviewSnapshot>> reviewCacheId,
+                       NegativeLookupService negativeLookupService,
+                       SecondaryIndexService secondaryIndexService) {
         this.bookRepository = bookRepository;
         this.authorRepository = authorRepository;
         this.reviewRepository = reviewRepository;
         this.bookCacheId = bookCacheId;
         this.authorCacheId = authorCacheId;
         this.reviewCacheId = reviewCacheId;
+        this.negativeLookupService = negativeLookupService;
+        this.secondaryIndexService = secondaryIndexService;
+        this.bookCacheId.setLoader(this::loadBook);
     }
 
     @Transactional
@@ -58,13 +75,7 @@ public class BookService {
         }
 
         // Обработка авторов
-        Set<Author> authorsToAdd = new HashSet<>();
-        for (Author author : book.getAuthors()) {
-            Author existingAuthor = authorRepository.findByNameAndSurname(author.getName(),
-                    author.getSurname());
-            authorsToAdd.add(Objects.requireNonNullElse(existingAuthor, author));
-        }
-        book.setAuthors(new ArrayList<>(authorsToAdd));
+        replaceAuthors(book, resolveAuthors(List.of(book)));
 
         // Сначала сохраняем книгу (без отзывов)
         Book savedBook = bookRepository.save(book);
@@ -80,37 +91,85 @@ public class BookService {
             savedBook.setReviews(savedReviews);
         }
 
-        // Обновляем кэш
-        bookCacheId.put(savedBook.getId(), savedBook);
-        for (Author author : savedBook.getAuthors()) {
-            authorCacheId.put(author.getId(), author);
-        }
+        // Обновляем кэш; снимки авторов перечитаются со списком книг, включающим новую
+        secondaryIndexService.invalidateBook(savedBook);
+        cacheAfterCommit(savedBook);
 
         return savedBook;
     }
 
-    public List<Book> readAll() {
-        return bookRepository.findAll();
+    public List<Book> readPage(int after, int limit) {
+        return bookRepository.findByIdGreaterThanOrderById(after, Limit.of(limit));
     }
 
-    public Book findById(int id) {
-        Book cachedBook = bookCacheId.get(id);
-        if (cachedBook != null) {
-            return cachedBook;
+    public BookSnapshot findById(int id) {
+        if (negativeLookupService.isMissingBook(id)) {
+            throw new ResourceNotFoundException(ErrorMessages.BOOK_NOT_FOUND.formatted(id));
         }
+        BookSnapshot book = bookCacheId.computeIfAbsent(id, this::loadBook);
+        if (book == null) {
+            negativeLookupService.markBookMissing(id);
+            throw new ResourceNotFoundException(ErrorMessages.BOOK_NOT_FOUND.formatted(id));
+        }
+        return book;
+    }
 
-        Book book = bookRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException(
-                        ErrorMessages.BOOK_NOT_FOUND.formatted(id)));
+    // Загрузчик вызывается и из фоновых потоков обновления, где нет сессии, поэтому все
+    // нужные снимку данные читаются явно: книга с авторами одним запросом, отзывы вторым.
+    // Версия строк читается первой, см. BookSnapshot.of
+    private BookSnapshot loadBook(Integer id) {
+        String version = EntityVersion.toMap(bookRepository.findSnapshotVersions(List.of(id)))
+                .get(id);
+        return bookRepository.findWithAuthorsById(id)
+                .map(book -> BookSnapshot.of(book, reviewRepository.findByBookId(id), version))
+                .orElse(null);
+    }
 
-        bookCacheId.put(id, book);
-        return book;
+    /**
+     * Снимки книг в порядке ids. Промахи кэша загружаются двумя запросами на всю пачку,
+     * отсутствующие книги пропускаются и запоминаются.
+     */
+    public List<BookSnapshot> findAllById(List<Integer> ids) {
+        List<Integer> candidates = ids.stream()
+                .filter(id -> !negativeLookupService.isMissingBook(id))
+                .collect(Collectors.toList());
+        Map<Integer, BookSnapshot> found = bookCacheId.computeAllIfAbsent(candidates,
+                this::loadBooks);
+        List<BookSnapshot> books = new ArrayList<>(candidates.size());
+        for (Integer id : candidates) {
+            BookSnapshot book = found.get(id);
+            if (book == null) {
+                negativeLookupService.markBookMissing(id);
+            } else {
+                books.add(book);
+            }
+        }
+        return books;
     }
 
-    public Book findByTitle(String title) {
-        return bookRepository.findByTitle(title).orElseThrow(() ->
-                new ResourceNotFoundException(
-                        ErrorMessages.BOOK_NOT_FOUND.formatted(title)));
+    private Map<Integer, BookSnapshot> loadBooks(Set<Integer> ids) {
+        Map<Integer, String> versions =
+                EntityVersion.toMap(bookRepository.findSnapshotVersions(ids));
+        Map<Integer, List<Review>> reviewsByBook = reviewRepository.findByBookIdIn(ids).stream()
+                .collect(Collectors.groupingBy(review -> review.getBook().getId()));
+        Map<Integer, BookSnapshot> books = new HashMap<>();
+        for (Book book : bookRepository.findWithAuthorsByIdIn(ids)) {
+            books.put(book.getId(), BookSnapshot.of(book,
+                    reviewsByBook.getOrDefault(book.getId(), List.of()),
+                    versions.get(book.getId())));
+        }
+        return books;
+    }
+
+    public BookSnapshot findByTitle(String title) {
+        // Индекс нечувствителен к регистру, а поиск по названию точный
+        for (Integer id : secondaryIndexService.findBookIdsByTitle(title)) {
+            BookSnapshot book = bookCacheId.computeIfAbsent(id, this::loadBook);
+            if (book != null && title.equals(book.getTitle())) {
+                return book;
+            }
+        }
+        throw new ResourceNotFoundException(ErrorMessages.BOOK_NOT_FOUND.formatted(title));
     }
 
     @Transactional
@@ -122,6 +181,7 @@ public class BookService {
         Book existingBook = bookRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(
                         ErrorMessages.BOOK_NOT_FOUND.formatted(id)));
+        secondaryIndexService.invalidateBook(existingBook);
 
         // Обновляем название
         if (book.getTitle() != null) {
@@ -134,6 +194,7 @@ public class BookService {
             existingBook.getAuthors().forEach(author -> {
                 author.getBooks().remove(existingBook);
                 authorRepository.save(author);
+                invalidateAuthorAfterCommit(author);
             });
             existingBook.getAuthors().clear();
 
@@ -146,12 +207,18 @@ public class BookService {
                 updatedAuthors.add(existingAuthor);
                 existingAuthor.getBooks().add(existingBook);
                 authorRepository.save(existingAuthor);
+                invalidateAuthorAfterCommit(existingAuthor);
             }
             existingBook.setAuthors(new ArrayList<>(updatedAuthors));
         }
 
         Book updatedBook = bookRepository.save(existingBook);
-        bookCacheId.put(updatedBook.getId(), updatedBook);
+        secondaryIndexService.invalidateBook(updatedBook);
+        BookSnapshot snapshot = BookSnapshot.of(updatedBook);
+        AfterCommit.run(() -> {
+            bookCacheId.invalidate(id);
+            bookCacheId.put(id, snapshot);
+        });
 
         return updatedBook;
     }
@@ -161,14 +228,13 @@ public class BookService {
         Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new ResourceNotFoundException(
                         ErrorMessages.BOOK_NOT_FOUND.formatted(bookId)));
+        secondaryIndexService.invalidateBook(book);
 
         // Удаление отзывов
         if (book.getReviews() != null) {
             reviewRepository.deleteAll(book.getReviews());
-            for (Review review : book.getReviews()) {
-                reviewCacheId.evict(review.getId());
-            }
         }
+        AfterCommit.run(() -> reviewCacheId.invalidate(bookId));
 
         if (book.getAuthors() != null) {
             Set<Author> authors = new HashSet<>(book.getAuthors());
@@ -179,32 +245,41 @@ public class BookService {
 
                     if (author.getBooks().isEmpty()) {
                         authorRepository.delete(author);
-                        authorCacheId.evict(author.getId());
                     }
+                    invalidateAuthorAfterCommit(author);
                 }
             }
         }
 
-        bookCacheId.evict(bookId);
+        AfterCommit.run(() -> bookCacheId.invalidate(bookId));
         bookRepository.delete(book);
 
         return true;
     }
 
-    public List<Book> findBooksByReviewMessageContaining(String keyword) {
-        List<Book> books = bookRepository.findBooksByReviewMessageContaining(keyword);
-        if (books.isEmpty()) {
+    public List<Book> findBooksByReviewMessageContaining(String keyword, int after, int limit) {
+        List<Book> books = bookRepository.findBooksByReviewMessageContaining(keyword, after,
+                Limit.of(limit));
+        // Пустая страница после последней не ошибка
+        if (books.isEmpty() && after == 0) {
             throw new ResourceNotFoundException(
                     String.format(ErrorMessages.REVIEWS_NOT_FOUND_WITH_KEYWORD, keyword));
         }
         return books;
     }
 
-    public List<Book> findBooksByAuthorNameAndSurnameNative(String authorName,
-                                                            String authorSurname) {
-        List<Book> books = bookRepository.findBooksByAuthorNameAndSurnameNative(authorName,
-                authorSurname);
-        if (books.isEmpty()) {
+    public List<BookSnapshot> findBooksByAuthorNameAndSurnameNative(String authorName,
+                                                                    String authorSurname,
+                                                                    int after, int limit) {
+        // Индекс хранит id книг по возрастанию, страница выбирается из него без запроса
+        List<BookSnapshot> books = secondaryIndexService
+                .findBookIdsByAuthor(authorName, authorSurname).stream()
+                .filter(id -> id > after)
+                .limit(limit)
+                .map(id -> bookCacheId.computeIfAbsent(id, this::loadBook))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        if (books.isEmpty() && after == 0) {
             throw new ResourceNotFoundException(
                     String.format("No books found for author: %s %s", authorName, authorSurname));
         }
@@ -218,35 +293,83 @@ public class BookService {
                     .formatted("Books"));
         }
 
+        for (Book book : books) {
+            if (book == null) {
+                throw new BadRequestException(ErrorMessages.ENTITY_CANNOT_BE_NULL
+                        .formatted("Book"));
+            }
+            if (book.getTitle() == null || book.getTitle().trim().isEmpty()) {
+                throw new BadRequestException(ErrorMessages.BOOK_TITLE_EMPTY);
+            }
+            if (book.getAuthors() == null || book.getAuthors().isEmpty()) {
+                throw new BadRequestException(ErrorMessages.BOOK_AUTHORS_EMPTY);
+            }
+        }
+
+        Map<AuthorName, Author> authors = resolveAuthors(books);
         return books.stream()
-                .peek(book -> {
-                    if (book == null) {
-                        throw new BadRequestException(ErrorMessages.ENTITY_CANNOT_BE_NULL
-                                .formatted("Book"));
-                    }
-                    if (book.getTitle() == null || book.getTitle().trim().isEmpty()) {
-                        throw new BadRequestException(ErrorMessages.BOOK_TITLE_EMPTY);
-                    }
-                    if (book.getAuthors() == null || book.getAuthors().isEmpty()) {
-                        throw new BadRequestException(ErrorMessages.BOOK_AUTHORS_EMPTY);
-                    }
-                })
                 .map(book -> {
-                    Set<Author> authorsToAdd = new HashSet<>();
-                    for (Author author : book.getAuthors()) {
-                        Author existingAuthor = authorRepository
-                                .findByNameAndSurname(author.getName(), author.getSurname());
-                        authorsToAdd.add(Objects.requireNonNullElse(existingAuthor, author));
-                    }
-                    book.setAuthors(new ArrayList<>(authorsToAdd));
+                    replaceAuthors(book, authors);
                     Book savedBook = bookRepository.save(book);
-                    bookCacheId.put(savedBook.getId(), savedBook);
-                    for (Author author : savedBook.getAuthors()) {
-                        authorCacheId.put(author.getId(), author);
-                    }
+                    secondaryIndexService.invalidateBook(savedBook);
+                    cacheAfterCommit(savedBook);
                     return savedBook;
                 })
                 .collect(Collectors.toList());
     }
 
-}
\ No newline at end of file
+    /**
+     * Находит существующих авторов всех книг партии одним запросом по парам имени и
+     * фамилии вместо запроса на каждого автора. Запрос выполняется до сохранения книг,
+     * поэтому не сбрасывает в базу накопленные вставки.
+     */
+    private Map<AuthorName, Author> resolveAuthors(Collection<Book> books) {
+        List<AuthorName> names = books.stream()
+                .flatMap(book -> book.getAuthors().stream())
+                .map(AuthorName::of)
+                .distinct()
+                .toList();
+        Map<AuthorName, Author> resolved = new HashMap<>();
+        if (names.isEmpty()) {
+            return resolved;
+        }
+        String[] firstNames = names.stream().map(AuthorName::name).toArray(String[]::new);
+        String[] surnames = names.stream().map(AuthorName::surname).toArray(String[]::new);
+        for (Author author : authorRepository.findByNameAndSurnamePairs(firstNames, surnames)) {
+            resolved.putIfAbsent(AuthorName.of(author), author);
+        }
+        return resolved;
+    }
+
+    // Нового автора запоминаем в карте: следующие книги партии сошлются на тот же экземпляр
+    private static void replaceAuthors(Book book, Map<AuthorName, Author> resolved) {
+        Set<Author> authorsToAdd = new LinkedHashSet<>();
+        for (Author author : book.getAuthors()) {
+            authorsToAdd.add(resolved.computeIfAbsent(AuthorName.of(author), name -> author));
+        }
+        book.setAuthors(new ArrayList<>(authorsToAdd));
+    }
+
+    private record AuthorName(String name, String surname) {
+        static AuthorName of(Author author) {
+            return new AuthorName(author.getName(), author.getSurname());
+        }
+    }
+
+    // Снимок и id строятся сразу, пока сущности привязаны к сессии; в кэш они попадут
+    // только после фиксации транзакции
+    private void cacheAfterCommit(Book savedBook) {
+        Integer id = savedBook.getId();
+        BookSnapshot snapshot = BookSnapshot.of(savedBook);
+        AfterCommit.run(() -> {
+            bookCacheId.invalidate(id);
+            bookCacheId.put(id, snapshot);
+        });
+        savedBook.getAuthors().forEach(this::invalidateAuthorAfterCommit);
+    }
+
+    private void invalidateAuthorAfterCommit(Author author) {
+        Integer authorId = author.getId();
+        AfterCommit.run(() -> authorCacheId.invalidate(authorId));
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.library.service;
+
+import com.example.library.util.CacheUtil;
+import com.example.library.util.InvalidationMessage;
+import com.example.library.util.InvalidationTransport;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Шина инвалидации: рассылает вызовы {@link CacheUtil#invalidate} остальным узлам и
+ * удаляет у себя записи, инвалидированные на других узлах. Полученные сообщения
+ * применяются через evict и повторно не рассылаются.
+ */
+@Service
+public class CacheInvalidationService {
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationService.class);
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, CacheUtil<?, ?>> caches;
+    private final InvalidationTransport transport;
+
+    public CacheInvalidationService(List<CacheUtil<?, ?>> caches, InvalidationTransport transport) {
+        this.caches = caches.stream()
+                .collect(Collectors.toMap(CacheUtil::getName, Function.identity(),
+                        (first, second) -> first));
+        this.transport = transport;
+        this.caches.values().forEach(cache -> cache.addInvalidationListener(this::publish));
+        transport.subscribe(this::receive);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private void publish(String cacheName, Object key) {
+        if (key instanceof Integer || key instanceof String) {
+            transport.publish(new InvalidationMessage(nodeId, cacheName, key));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void receive(InvalidationMessage message) {
+        if (nodeId.equals(message.origin())) {
+            return;
+        }
+        CacheUtil<Object, ?> cache = (CacheUtil<Object, ?>) caches.get(message.cache());
+        if (cache == null) {
+            logger.debug("Invalidation for unknown cache {} ignored", message.cache());
+            return;
+        }
+        cache.evict(message.key());
+    }
+}
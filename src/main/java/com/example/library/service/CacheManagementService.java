@@ -0,0 +1,95 @@
+package com.example.library.service;
+
+import com.example.library.config.CacheProperties;
+import com.example.library.exception.BadRequestException;
+import com.example.library.exception.ErrorMessages;
+import com.example.library.exception.ResourceNotFoundException;
+import com.example.library.util.CacheSettings;
+import com.example.library.util.CacheStats;
+import com.example.library.util.CacheUtil;
+import com.example.library.util.IntKeyCache;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+@Service
+public class CacheManagementService {
+
+    private static final String PROPERTIES_PREFIX = "library.cache";
+
+    private final Map<String, CacheUtil<?, ?>> caches;
+    private final Map<String, IntKeyCache<?>> intKeyCaches;
+    private final Environment environment;
+
+    // Кэши IntKeyCache настраиваются только при запуске, здесь доступна лишь их статистика
+    public CacheManagementService(List<CacheUtil<?, ?>> caches,
+                                  List<IntKeyCache<?>> intKeyCaches,
+                                  Environment environment) {
+        this.caches = caches.stream()
+                .collect(Collectors.toMap(CacheUtil::getName, Function.identity(),
+                        (first, second) -> first, TreeMap::new));
+        this.intKeyCaches = intKeyCaches.stream()
+                .collect(Collectors.toMap(IntKeyCache::getName, Function.identity(),
+                        (first, second) -> first, TreeMap::new));
+        this.environment = environment;
+    }
+
+    public Map<String, CacheSettings> getSettings() {
+        Map<String, CacheSettings> result = new TreeMap<>();
+        caches.forEach((name, cache) -> result.put(name, cache.getSettings()));
+        return result;
+    }
+
+    public Map<String, CacheStats> getStats() {
+        Map<String, CacheStats> result = new TreeMap<>();
+        caches.forEach((name, cache) -> result.put(name, cache.stats()));
+        intKeyCaches.forEach((name, cache) -> result.put(name, cache.stats()));
+        return result;
+    }
+
+    public CacheStats getStats(String name) {
+        IntKeyCache<?> intKeyCache = intKeyCaches.get(name);
+        return intKeyCache != null ? intKeyCache.stats() : getCache(name).stats();
+    }
+
+    public CacheSettings updateSettings(String name, CacheProperties.Spec spec) {
+        if (spec == null) {
+            throw new BadRequestException(ErrorMessages.ENTITY_CANNOT_BE_NULL
+                    .formatted("Cache settings"));
+        }
+        CacheUtil<?, ?> cache = getCache(name);
+        cache.applySettings(toSettings(spec));
+        return cache.getSettings();
+    }
+
+    // Перечитывает library.cache.* из окружения и применяет ко всем кэшам,
+    // отменяя изменения, сделанные через updateSettings
+    public Map<String, CacheSettings> reloadSettings() {
+        CacheProperties properties = Binder.get(environment)
+                .bindOrCreate(PROPERTIES_PREFIX, CacheProperties.class);
+        caches.forEach((name, cache) ->
+                cache.applySettings(toSettings(properties.getSpec(name))));
+        return getSettings();
+    }
+
+    private CacheUtil<?, ?> getCache(String name) {
+        CacheUtil<?, ?> cache = caches.get(name);
+        if (cache == null) {
+            throw new ResourceNotFoundException(ErrorMessages.CACHE_NOT_FOUND.formatted(name));
+        }
+        return cache;
+    }
+
+    private static CacheSettings toSettings(CacheProperties.Spec spec) {
+        try {
+            return spec.toSettings();
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
+}
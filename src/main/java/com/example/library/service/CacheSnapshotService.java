@@ -0,0 +1,224 @@
+package com.example.library.service;
+
+import com.example.library.config.CacheProperties;
+import com.example.library.model.AuthorSnapshot;
+import com.example.library.model.BookSnapshot;
+import com.example.library.repository.AuthorRepository;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.EntityVersion;
+import com.example.library.util.CacheUtil;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+/**
+ * Сохраняет содержимое кэшей книг и авторов в локальный файл при остановке и периодически,
+ * а при старте загружает его обратно. Сохраняются только снимки с версией строк, из которых
+ * они собраны (ее записывает загрузчик кэша), вместе со временем их загрузки. При старте
+ * снимок попадает в кэш, только если версия в базе не изменилась, и с исходной давностью,
+ * поэтому ни изменения других узлов за время простоя, ни устаревшие к моменту сохранения
+ * записи не возвращаются в кэш как свежие.
+ */
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class CacheSnapshotService implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(CacheSnapshotService.class);
+    private static final int MAGIC = 0x4c434153;
+    private static final int FORMAT_VERSION = 2;
+    private static final int VERSION_BATCH_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final CacheUtil<Integer, BookSnapshot> bookCacheId;
+    private final CacheUtil<Integer, AuthorSnapshot> authorCacheId;
+    private final CacheProperties.Snapshot settings;
+    private final Path snapshotFile;
+    private ScheduledExecutorService scheduler;
+
+    public CacheSnapshotService(BookRepository bookRepository,
+                                AuthorRepository authorRepository,
+                                CacheUtil<Integer, BookSnapshot> bookCacheId,
+                                CacheUtil<Integer, AuthorSnapshot> authorCacheId,
+                                CacheProperties cacheProperties) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.bookCacheId = bookCacheId;
+        this.authorCacheId = authorCacheId;
+        this.settings = cacheProperties.getSnapshot();
+        this.snapshotFile = Paths.get(settings.getFile());
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        restore();
+        long interval = settings.getInterval().toMillis();
+        if (interval > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "cache-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::save, interval, interval,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        save();
+    }
+
+    public synchronized void save() {
+        try {
+            Path parent = snapshotFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tempFile = Files.createTempFile(parent, "cache-snapshot", ".tmp");
+            int books;
+            int authors;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(tempFile))))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                books = writeSection(out, bookCacheId, BookSnapshot::getVersion,
+                        BookSnapshot::writeTo);
+                authors = writeSection(out, authorCacheId, AuthorSnapshot::getVersion,
+                        AuthorSnapshot::writeTo);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(tempFile);
+                throw e;
+            }
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+            logger.info("Saved cache snapshot with {} books and {} authors to {}",
+                    books, authors, snapshotFile);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to save cache snapshot to {}", snapshotFile, e);
+        }
+    }
+
+    public synchronized void restore() {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(snapshotFile))))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                logger.warn("Ignoring cache snapshot {} in unknown format", snapshotFile);
+                return;
+            }
+            int books = readSection(in, bookCacheId, bookRepository::findSnapshotVersions,
+                    BookSnapshot::getVersion, BookSnapshot::readFrom);
+            int authors = readSection(in, authorCacheId, authorRepository::findSnapshotVersions,
+                    AuthorSnapshot::getVersion, AuthorSnapshot::readFrom);
+            logger.info("Restored {} books and {} authors from cache snapshot {}",
+                    books, authors, snapshotFile);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to restore cache snapshot from {}", snapshotFile, e);
+        }
+    }
+
+    // Версия берется из снимка, а не из базы: запись, которая уже устарела (пропущенная
+    // инвалидация, значение, оставленное staleIfError), иначе получила бы текущую версию
+    private <V> int writeSection(DataOutput out, CacheUtil<Integer, V> cache,
+                                 Function<V, String> versionOf, EntryWriter<V> writer)
+            throws IOException {
+        long now = System.currentTimeMillis();
+        Map<Integer, V> values = new LinkedHashMap<>();
+        Map<Integer, Long> writtenAt = new HashMap<>();
+        cache.forEachWithAge((key, value, writeAge) -> {
+            if (versionOf.apply(value) != null) {
+                values.put(key, value);
+                writtenAt.put(key, now - writeAge.toMillis());
+            }
+        });
+        out.writeInt(values.size());
+        for (Map.Entry<Integer, V> entry : values.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeLong(writtenAt.get(entry.getKey()));
+            writer.write(entry.getValue(), out);
+        }
+        return values.size();
+    }
+
+    private <V> int readSection(DataInput in, CacheUtil<Integer, V> cache,
+                                Function<List<Integer>, List<EntityVersion>> versionLoader,
+                                Function<V, String> versionOf, EntryReader<V> reader)
+            throws IOException {
+        int count = in.readInt();
+        Map<Integer, Long> writtenAt = new HashMap<>(count * 2);
+        Map<Integer, V> values = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            int key = in.readInt();
+            writtenAt.put(key, in.readLong());
+            values.put(key, reader.read(in));
+        }
+
+        Map<Integer, String> versions =
+                loadVersions(new ArrayList<>(values.keySet()), versionLoader);
+        long now = System.currentTimeMillis();
+        int restored = 0;
+        for (Map.Entry<Integer, V> entry : values.entrySet()) {
+            if (versionOf.apply(entry.getValue()).equals(versions.get(entry.getKey()))) {
+                Duration writeAge = Duration.ofMillis(now - writtenAt.get(entry.getKey()));
+                cache.put(entry.getKey(), entry.getValue(), writeAge);
+                restored++;
+            }
+        }
+        return restored;
+    }
+
+    private static Map<Integer, String> loadVersions(
+            List<Integer> ids, Function<List<Integer>, List<EntityVersion>> versionLoader) {
+        Map<Integer, String> versions = new HashMap<>(ids.size() * 2);
+        for (int from = 0; from < ids.size(); from += VERSION_BATCH_SIZE) {
+            List<Integer> batch =
+                    ids.subList(from, Math.min(ids.size(), from + VERSION_BATCH_SIZE));
+            versions.putAll(EntityVersion.toMap(versionLoader.apply(batch)));
+        }
+        return versions;
+    }
+
+    @FunctionalInterface
+    private interface EntryWriter<V> {
+        void write(V value, DataOutput out) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface EntryReader<V> {
+        V read(DataInput in) throws IOException;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.library.service;
+
+import com.example.library.config.CacheProperties;
+import com.example.library.exception.ResourceNotFoundException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+/**
+ * Заполняет кэши книг и авторов самыми посещаемыми записями из сохраненных счетчиков
+ * посещений. Выполняется до того, как приложение переходит в состояние готовности.
+ */
+@Service
+public class CacheWarmUpService implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(CacheWarmUpService.class);
+    static final Pattern BOOK_URL = Pattern.compile("^/books/(\\d{1,9})$");
+    static final Pattern AUTHOR_URL = Pattern.compile("^/authors/(\\d{1,9})(/books)?$");
+
+    private final VisitCounterService visitCounterService;
+    private final BookService bookService;
+    private final AuthorService authorService;
+    private final CacheProperties cacheProperties;
+
+    public CacheWarmUpService(VisitCounterService visitCounterService,
+                              BookService bookService,
+                              AuthorService authorService,
+                              CacheProperties cacheProperties) {
+        this.visitCounterService = visitCounterService;
+        this.bookService = bookService;
+        this.authorService = authorService;
+        this.cacheProperties = cacheProperties;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        CacheProperties.WarmUp warmUp = cacheProperties.getWarmUp();
+        if (warmUp.isEnabled()) {
+            warmUp(warmUp.getTimeBudget(), warmUp.getMaximumEntries());
+        }
+    }
+
+    public int warmUp(Duration timeBudget, int maximumEntries) {
+        List<Candidate> candidates = collectCandidates(visitCounterService.getAllCounters());
+        long deadline = System.nanoTime() + timeBudget.toNanos();
+        int loaded = 0;
+        for (Candidate candidate : candidates) {
+            if (loaded >= maximumEntries || System.nanoTime() - deadline >= 0) {
+                break;
+            }
+            try {
+                candidate.loader().accept(candidate.id());
+                loaded++;
+            } catch (ResourceNotFoundException e) {
+                logger.debug("Skipping warm-up of missing entry: {}", e.getMessage());
+            } catch (RuntimeException e) {
+                logger.warn("Cache warm-up stopped after {} entries", loaded, e);
+                return loaded;
+            }
+        }
+        logger.info("Cache warm-up loaded {} of {} candidates", loaded, candidates.size());
+        return loaded;
+    }
+
+    private List<Candidate> collectCandidates(Map<String, Integer> counters) {
+        Map<Integer, Integer> books = new HashMap<>();
+        Map<Integer, Integer> authors = new HashMap<>();
+        counters.forEach((url, count) -> {
+            Matcher book = BOOK_URL.matcher(url);
+            Matcher author = AUTHOR_URL.matcher(url);
+            if (book.matches()) {
+                books.merge(Integer.parseInt(book.group(1)), count, Integer::sum);
+            } else if (author.matches()) {
+                authors.merge(Integer.parseInt(author.group(1)), count, Integer::sum);
+            }
+        });
+
+        List<Candidate> candidates = new ArrayList<>();
+        books.forEach((id, count) ->
+                candidates.add(new Candidate(id, count, bookService::findById)));
+        authors.forEach((id, count) ->
+                candidates.add(new Candidate(id, count, authorService::findById)));
+        candidates.sort(Comparator.comparingInt(Candidate::visits).reversed());
+        return candidates;
+    }
+
+    private record Candidate(int id, int visits, IntConsumer loader) {
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.library.service;
+
+import com.example.library.config.CacheConfig;
+import com.example.library.config.CacheProperties;
+import com.example.library.model.AuthorSnapshot;
+import com.example.library.model.BookSnapshot;
+import com.example.library.util.CacheUtil;
+import jakarta.annotation.PreDestroy;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+/**
+ * Находит самые посещаемые книги и авторов по приросту счетчиков посещений и закрепляет их
+ * в кэшах, чтобы сканирования и истечение срока не вытесняли их. Оценка ключа - число
+ * посещений за интервал с экспоненциальным затуханием (вдвое за интервал); закрепляются
+ * не более maximumPinned ключей с оценкой не ниже minimumVisits, остальные открепляются.
+ */
+@Service
+public class HotKeyService implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(HotKeyService.class);
+    private static final double DECAY = 0.5;
+    private static final double FORGOTTEN_SCORE = 1;
+
+    private final VisitCounterService visitCounterService;
+    private final CacheProperties.HotKeys settings;
+    private final HotKeys books;
+    private final HotKeys authors;
+    private Map<String, Integer> previousCounters;
+    private ScheduledExecutorService scheduler;
+
+    public HotKeyService(VisitCounterService visitCounterService,
+                         CacheUtil<Integer, BookSnapshot> bookCacheId,
+                         CacheUtil<Integer, AuthorSnapshot> authorCacheId,
+                         CacheProperties cacheProperties) {
+        this.visitCounterService = visitCounterService;
+        this.settings = cacheProperties.getHotKeys();
+        this.books = new HotKeys(bookCacheId);
+        this.authors = new HotKeys(authorCacheId);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long interval = settings.getInterval().toMillis();
+        if (!settings.isEnabled() || interval <= 0) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hot-keys");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::detectSafely, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Пересчитывает оценки по приросту счетчиков с прошлого вызова и обновляет закрепленные
+     * ключи. Первый вызов только запоминает текущие значения счетчиков.
+     */
+    public synchronized void detect() {
+        Map<String, Integer> counters = visitCounterService.getAllCounters();
+        Map<Integer, Integer> bookVisits = new HashMap<>();
+        Map<Integer, Integer> authorVisits = new HashMap<>();
+        if (previousCounters != null) {
+            counters.forEach((url, count) -> {
+                int visits = count - previousCounters.getOrDefault(url, 0);
+                if (visits <= 0) {
+                    return;
+                }
+                Matcher book = CacheWarmUpService.BOOK_URL.matcher(url);
+                Matcher author = CacheWarmUpService.AUTHOR_URL.matcher(url);
+                if (book.matches()) {
+                    bookVisits.merge(Integer.parseInt(book.group(1)), visits, Integer::sum);
+                } else if (author.matches()) {
+                    authorVisits.merge(Integer.parseInt(author.group(1)), visits, Integer::sum);
+                }
+            });
+        }
+        previousCounters = counters;
+        books.update(bookVisits);
+        authors.update(authorVisits);
+    }
+
+    public Map<String, Set<Integer>> getPinnedKeys() {
+        Map<String, Set<Integer>> pinned = new LinkedHashMap<>();
+        pinned.put(CacheConfig.BOOK_CACHE, new TreeSet<>(books.cache.getPinnedKeys()));
+        pinned.put(CacheConfig.AUTHOR_CACHE, new TreeSet<>(authors.cache.getPinnedKeys()));
+        return pinned;
+    }
+
+    private void detectSafely() {
+        try {
+            detect();
+        } catch (RuntimeException e) {
+            logger.warn("Hot key detection failed", e);
+        }
+    }
+
+    private final class HotKeys {
+        private final CacheUtil<Integer, ?> cache;
+        private final Map<Integer, Double> scores = new HashMap<>();
+
+        HotKeys(CacheUtil<Integer, ?> cache) {
+            this.cache = cache;
+        }
+
+        void update(Map<Integer, Integer> visits) {
+            Iterator<Map.Entry<Integer, Double>> iterator = scores.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Integer, Double> entry = iterator.next();
+                double score = entry.getValue() * DECAY;
+                if (score < FORGOTTEN_SCORE && !visits.containsKey(entry.getKey())) {
+                    iterator.remove();
+                } else {
+                    entry.setValue(score);
+                }
+            }
+            visits.forEach((id, count) -> scores.merge(id, (double) count, Double::sum));
+
+            Set<Integer> hot = scores.entrySet().stream()
+                    .filter(entry -> entry.getValue() >= settings.getMinimumVisits())
+                    .sorted(Map.Entry.<Integer, Double>comparingByValue(Comparator.reverseOrder()))
+                    .limit(settings.getMaximumPinned())
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toSet());
+            Set<Integer> pinned = cache.getPinnedKeys();
+            pinned.stream().filter(id -> !hot.contains(id)).forEach(cache::unpin);
+            hot.stream().filter(id -> !pinned.contains(id)).forEach(cache::pin);
+            if (!hot.equals(pinned)) {
+                logger.info("Pinned {} hot keys in cache {}", hot.size(), cache.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.library.service;
+
+import com.example.library.config.CacheConfig;
+import com.example.library.exception.ErrorMessages;
+import com.example.library.exception.InternalServerErrorException;
+import com.example.library.mapper.AuthorMapper;
+import com.example.library.mapper.BookMapper;
+import com.example.library.model.Author;
+import com.example.library.model.AuthorSnapshot;
+import com.example.library.model.Book;
+import com.example.library.model.BookSnapshot;
+import com.example.library.util.CacheUtil;
+import com.example.library.util.InvalidationTransport;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import org.springframework.stereotype.Service;
+
+/**
+ * Готовые UTF-8 JSON-фрагменты отдельных BookDto и AuthorDto. Списочные ответы
+ * склеиваются из фрагментов без маппинга и сериализации неизменившихся записей.
+ * Фрагмент удаляется вместе с записью book или author, в том числе при инвалидации,
+ * полученной с другого узла.
+ *
+ * <p>Фрагменты строятся из сущностей, прочитанных вызывающим кодом. Метку {@link #readMark()}
+ * нужно получить до чтения: если запись инвалидировали после метки, фрагмент из
+ * прочитанной ранее сущности в кэше не остается.
+ */
+@Service
+public class JsonFragmentService {
+    // Полосы id для отметок инвалидации; совпадение полос дает лишь лишний промах
+    private static final int STRIPES = 1024;
+
+    private final ObjectMapper objectMapper;
+    private final BookMapper bookMapper;
+    private final AuthorMapper authorMapper;
+    private final CacheUtil<Integer, byte[]> bookJsonCacheId;
+    private final CacheUtil<Integer, byte[]> authorJsonCacheId;
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLongArray bookInvalidatedAt = new AtomicLongArray(STRIPES);
+    private final AtomicLongArray authorInvalidatedAt = new AtomicLongArray(STRIPES);
+
+    public JsonFragmentService(ObjectMapper objectMapper,
+                               BookMapper bookMapper,
+                               AuthorMapper authorMapper,
+                               CacheUtil<Integer, BookSnapshot> bookCacheId,
+                               CacheUtil<Integer, AuthorSnapshot> authorCacheId,
+                               CacheUtil<Integer, byte[]> bookJsonCacheId,
+                               CacheUtil<Integer, byte[]> authorJsonCacheId,
+                               InvalidationTransport invalidationTransport) {
+        this.objectMapper = objectMapper;
+        this.bookMapper = bookMapper;
+        this.authorMapper = authorMapper;
+        this.bookJsonCacheId = bookJsonCacheId;
+        this.authorJsonCacheId = authorJsonCacheId;
+
+        bookCacheId.addInvalidationListener(
+                (cache, key) -> evict(bookJsonCacheId, bookInvalidatedAt, key));
+        authorCacheId.addInvalidationListener(
+                (cache, key) -> evict(authorJsonCacheId, authorInvalidatedAt, key));
+        invalidationTransport.subscribe(message -> {
+            if (CacheConfig.BOOK_CACHE.equals(message.cache())) {
+                evict(bookJsonCacheId, bookInvalidatedAt, message.key());
+            } else if (CacheConfig.AUTHOR_CACHE.equals(message.cache())) {
+                evict(authorJsonCacheId, authorInvalidatedAt, message.key());
+            }
+        });
+    }
+
+    /** Метка, которую нужно получить до чтения сущностей, переданных затем в render*. */
+    public long readMark() {
+        return invalidations.get();
+    }
+
+    public byte[] renderBooks(List<Book> books, long readMark) {
+        return renderArray(books, Book::getId, bookJsonCacheId, bookInvalidatedAt,
+                bookMapper::toDto, "Book", readMark);
+    }
+
+    public byte[] renderAuthors(List<Author> authors, long readMark) {
+        return renderArray(authors, Author::getId, authorJsonCacheId, authorInvalidatedAt,
+                authorMapper::toDto, "Author", readMark);
+    }
+
+    private <T> byte[] renderArray(List<T> items, ToIntFunction<T> idOf,
+                                   CacheUtil<Integer, byte[]> fragments,
+                                   AtomicLongArray invalidatedAt,
+                                   Function<T, ?> toDto, String entityName, long readMark) {
+        byte[][] parts = new byte[items.size()][];
+        int length = 2 + Math.max(0, items.size() - 1);
+        for (int i = 0; i < parts.length; i++) {
+            T item = items.get(i);
+            int itemId = idOf.applyAsInt(item);
+            parts[i] = fragments.computeIfAbsent(itemId,
+                    id -> serialize(toDto.apply(item), entityName, id));
+            // Отметка ставится до удаления фрагмента: либо она видна здесь, либо удаление
+            // еще впереди и уберет фрагмент из устаревшей сущности само
+            if (invalidatedAt.get(itemId & (STRIPES - 1)) > readMark) {
+                fragments.evict(itemId);
+            }
+            length += parts[i].length;
+        }
+
+        byte[] body = new byte[length];
+        int position = 0;
+        body[position++] = '[';
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                body[position++] = ',';
+            }
+            System.arraycopy(parts[i], 0, body, position, parts[i].length);
+            position += parts[i].length;
+        }
+        body[position] = ']';
+        return body;
+    }
+
+    private byte[] serialize(Object dto, String entityName, int id) {
+        try {
+            return objectMapper.writeValueAsBytes(dto);
+        } catch (JsonProcessingException e) {
+            throw new InternalServerErrorException(
+                    ErrorMessages.SERIALIZATION_FAILED.formatted(entityName, id), e);
+        }
+    }
+
+    private void evict(CacheUtil<Integer, byte[]> fragments, AtomicLongArray invalidatedAt,
+                       Object key) {
+        if (key instanceof Integer id) {
+            invalidatedAt.set(id & (STRIPES - 1), invalidations.incrementAndGet());
+            fragments.evict(id);
+        }
+    }
+}
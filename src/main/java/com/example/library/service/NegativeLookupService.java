@@ -0,0 +1,136 @@
+package com.example.library.service;
+
+import com.example.library.config.CacheConfig;
+import com.example.library.model.AuthorSnapshot;
+import com.example.library.model.BookSnapshot;
+import com.example.library.repository.AuthorRepository;
+import com.example.library.repository.BookRepository;
+import com.example.library.util.BloomFilter;
+import com.example.library.util.CacheUtil;
+import com.example.library.util.IntKeyCache;
+import com.example.library.util.InvalidationTransport;
+import java.util.List;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+/**
+ * Отвечает на запросы несуществующих книг и авторов без обращения к базе. Фильтр Блума
+ * по всем id строится при старте, а id, которых нет в базе, но которые фильтр пропустил,
+ * на короткое время запоминаются в кэшах book-missing и author-missing. Любая инвалидация
+ * id (в том числе полученная с другого узла) добавляет его в фильтр и снимает отметку
+ * об отсутствии, поэтому новые записи становятся видны сразу.
+ */
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class NegativeLookupService implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(NegativeLookupService.class);
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+    private static final long MINIMUM_EXPECTED_INSERTIONS = 10_000;
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final ExistenceIndex books;
+    private final ExistenceIndex authors;
+
+    public NegativeLookupService(BookRepository bookRepository,
+                                 AuthorRepository authorRepository,
+                                 CacheUtil<Integer, BookSnapshot> bookCacheId,
+                                 CacheUtil<Integer, AuthorSnapshot> authorCacheId,
+                                 IntKeyCache<Boolean> bookMissingCacheId,
+                                 IntKeyCache<Boolean> authorMissingCacheId,
+                                 InvalidationTransport invalidationTransport) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.books = new ExistenceIndex(bookMissingCacheId);
+        this.authors = new ExistenceIndex(authorMissingCacheId);
+
+        bookCacheId.addInvalidationListener((cache, key) -> books.markPresent((Integer) key));
+        authorCacheId.addInvalidationListener((cache, key) -> authors.markPresent((Integer) key));
+        invalidationTransport.subscribe(message -> {
+            if (!(message.key() instanceof Integer id)) {
+                return;
+            }
+            if (CacheConfig.BOOK_CACHE.equals(message.cache())) {
+                books.markPresent(id);
+            } else if (CacheConfig.AUTHOR_CACHE.equals(message.cache())) {
+                authors.markPresent(id);
+            }
+        });
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    public void rebuild() {
+        books.rebuild(bookRepository.count(), bookRepository::findAllIds);
+        authors.rebuild(authorRepository.count(), authorRepository::findAllIds);
+        logger.info("Existence filters rebuilt");
+    }
+
+    public boolean isMissingBook(int id) {
+        return books.isMissing(id);
+    }
+
+    public void markBookMissing(int id) {
+        books.markMissing(id);
+    }
+
+    public boolean isMissingAuthor(int id) {
+        return authors.isMissing(id);
+    }
+
+    public void markAuthorMissing(int id) {
+        authors.markMissing(id);
+    }
+
+    private static final class ExistenceIndex {
+        private final IntKeyCache<Boolean> missing;
+        private volatile BloomFilter filter;
+        // Пока фильтр заполняется, он принимает новые id, но не используется для ответов
+        private volatile boolean ready;
+
+        ExistenceIndex(IntKeyCache<Boolean> missing) {
+            this.missing = missing;
+        }
+
+        boolean isMissing(int id) {
+            BloomFilter current = filter;
+            if (current != null && ready && !current.mightContain(id)) {
+                return true;
+            }
+            return missing.get(id) != null;
+        }
+
+        void markMissing(int id) {
+            missing.put(id, Boolean.TRUE);
+        }
+
+        void markPresent(Integer id) {
+            if (id == null) {
+                return;
+            }
+            BloomFilter current = filter;
+            if (current != null) {
+                current.put(id);
+            }
+            missing.evict(id);
+        }
+
+        void rebuild(long count, Supplier<List<Integer>> ids) {
+            BloomFilter next = new BloomFilter(
+                    Math.max(MINIMUM_EXPECTED_INSERTIONS, count * 2), FALSE_POSITIVE_PROBABILITY);
+            ready = false;
+            filter = next;
+            ids.get().forEach(next::put);
+            ready = true;
+        }
+    }
+}
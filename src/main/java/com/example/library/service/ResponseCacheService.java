@@ -0,0 +1,219 @@
+package com.example.library.service;
+
+import com.example.library.config.CacheConfig;
+import com.example.library.model.AuthorSnapshot;
+import com.example.library.model.BookSnapshot;
+import com.example.library.model.CachedResponse;
+import com.example.library.model.ReviewSnapshot;
+import com.example.library.repository.AuthorRepository;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.EntityVersion;
+import com.example.library.util.CacheUtil;
+import com.example.library.util.InvalidationTransport;
+import com.example.library.util.TagVersions;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.stereotype.Service;
+
+/**
+ * Кэш готовых ответов GET-запросов к книгам, авторам и отзывам. Каждый ответ помечается
+ * тегами по своему пути: book, book:{id}, author, author:{id}, review:{bookId}.
+ * Теги инвалидируются вместе с записями кэшей book, author и review, которые сервисы
+ * инвалидируют при каждом изменении, в том числе по сообщениям с других узлов.
+ * ETag ответа по одной книге, ее отзывам, автору или книгам автора строится из версий
+ * строк в базе (EntityVersion), поэтому совпадает на всех узлах и после перезапуска, а
+ * условный запрос проверяется без загрузки сущностей. У списков общей версии нет, и ETag
+ * они не получают.
+ */
+@Service
+public class ResponseCacheService {
+
+    public static final String BOOK_TAG = "book";
+    public static final String AUTHOR_TAG = "author";
+    public static final String REVIEW_TAG = "review";
+
+    private static final int TAG_STRIPES = 4096;
+    private static final Pattern BOOK_PATH = Pattern.compile("/books/(\\d{1,9})");
+    private static final Pattern REVIEWS_PATH =
+            Pattern.compile("/books/(\\d{1,9})/reviews(?:/\\d{1,9})?");
+    private static final Pattern AUTHOR_PATH = Pattern.compile("/authors/(\\d{1,9})");
+    private static final Pattern AUTHOR_BOOKS_PATH = Pattern.compile("/authors/(\\d{1,9})/books");
+
+    private final CacheUtil<String, CachedResponse> responseCacheId;
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final TagVersions tagVersions = new TagVersions(TAG_STRIPES);
+
+    public ResponseCacheService(CacheUtil<String, CachedResponse> responseCacheId,
+                                BookRepository bookRepository,
+                                AuthorRepository authorRepository,
+                                CacheUtil<Integer, BookSnapshot> bookCacheId,
+                                CacheUtil<Integer, AuthorSnapshot> authorCacheId,
+                                CacheUtil<Integer, List<ReviewSnapshot>> reviewCacheId,
+                                InvalidationTransport invalidationTransport) {
+        this.responseCacheId = responseCacheId;
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+
+        bookCacheId.addInvalidationListener((cache, key) -> invalidateEntity(BOOK_TAG, key));
+        authorCacheId.addInvalidationListener((cache, key) -> invalidateEntity(AUTHOR_TAG, key));
+        reviewCacheId.addInvalidationListener(
+                (cache, key) -> invalidateTag(REVIEW_TAG + ":" + key));
+        invalidationTransport.subscribe(message -> {
+            if (CacheConfig.BOOK_CACHE.equals(message.cache())) {
+                invalidateEntity(BOOK_TAG, message.key());
+            } else if (CacheConfig.AUTHOR_CACHE.equals(message.cache())) {
+                invalidateEntity(AUTHOR_TAG, message.key());
+            } else if (CacheConfig.REVIEW_CACHE.equals(message.cache())) {
+                invalidateTag(REVIEW_TAG + ":" + message.key());
+            }
+        });
+    }
+
+    /**
+     * Возвращает теги ответа по пути запроса или null, если ответы по этому пути
+     * не кэшируются.
+     */
+    public static String[] tagsFor(String path) {
+        // Выгрузка пишется потоком, буферизация ответа фильтром свела бы это на нет
+        if (path.equals(BookExportService.EXPORT_PATH)) {
+            return null;
+        }
+        Matcher matcher = REVIEWS_PATH.matcher(path);
+        if (matcher.matches()) {
+            return new String[] {REVIEW_TAG + ":" + matcher.group(1)};
+        }
+        matcher = BOOK_PATH.matcher(path);
+        if (matcher.matches()) {
+            return new String[] {BOOK_TAG + ":" + matcher.group(1)};
+        }
+        matcher = AUTHOR_BOOKS_PATH.matcher(path);
+        if (matcher.matches()) {
+            return new String[] {AUTHOR_TAG + ":" + matcher.group(1), BOOK_TAG};
+        }
+        matcher = AUTHOR_PATH.matcher(path);
+        if (matcher.matches()) {
+            return new String[] {AUTHOR_TAG + ":" + matcher.group(1)};
+        }
+        if (path.equals("/books") || path.startsWith("/books/")) {
+            return new String[] {BOOK_TAG};
+        }
+        if (path.equals("/authors") || path.startsWith("/authors/")) {
+            return new String[] {AUTHOR_TAG};
+        }
+        return null;
+    }
+
+    public CachedResponse get(String key) {
+        CachedResponse response = responseCacheId.get(key);
+        if (response != null && !tagVersions.isCurrent(response.tags(), response.tagVersions())) {
+            responseCacheId.evict(key);
+            return null;
+        }
+        return response;
+    }
+
+    /** Версии тегов нужно получить до обработки запроса, иначе можно сохранить устаревший ответ. */
+    public long[] tagVersions(String[] tags) {
+        return tagVersions.snapshot(tags);
+    }
+
+    public void put(String key, CachedResponse response) {
+        if (tagVersions.isCurrent(response.tags(), response.tagVersions())) {
+            responseCacheId.put(key, response);
+        }
+    }
+
+    /**
+     * Строгий ETag ответа по пути запроса или null, если у ответа нет версии в базе:
+     * это список или сущности не существует. Версию нужно получить до обработки запроса,
+     * тогда изменение во время нее даст ETag, который уже не совпадет с актуальным.
+     */
+    public String etag(String path) {
+        Matcher matcher = REVIEWS_PATH.matcher(path);
+        if (!matcher.matches()) {
+            matcher = BOOK_PATH.matcher(path);
+        }
+        if (matcher.matches()) {
+            return quote(versionOf(bookRepository.findSnapshotVersions(
+                    List.of(Integer.parseInt(matcher.group(1))))));
+        }
+        matcher = AUTHOR_BOOKS_PATH.matcher(path);
+        if (matcher.matches()) {
+            int authorId = Integer.parseInt(matcher.group(1));
+            String author = versionOf(authorRepository.findSnapshotVersions(List.of(authorId)));
+            if (author == null) {
+                return null;
+            }
+            // Версия автора учитывает связи с книгами, версии книг - их содержимое
+            StringBuilder versions = new StringBuilder(author);
+            for (EntityVersion book : bookRepository.findSnapshotVersionsByAuthorId(authorId)) {
+                versions.append('|').append(book.getId()).append(':').append(book.getVersion());
+            }
+            return quote(md5(versions.toString()));
+        }
+        matcher = AUTHOR_PATH.matcher(path);
+        if (matcher.matches()) {
+            return quote(versionOf(authorRepository.findSnapshotVersions(
+                    List.of(Integer.parseInt(matcher.group(1))))));
+        }
+        return null;
+    }
+
+    /**
+     * Проверяет заголовок If-None-Match; W/ игнорируется, как требует слабое сравнение.
+     * Звездочка здесь не совпадает, ее проверяет {@link #isWildcard}.
+     */
+    public static boolean matchesAny(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** If-None-Match: * - совпадает с любым существующим представлением ресурса. */
+    public static boolean isWildcard(String ifNoneMatch) {
+        return ifNoneMatch != null && ifNoneMatch.trim().equals("*");
+    }
+
+    public void invalidateTag(String tag) {
+        tagVersions.invalidate(tag);
+    }
+
+    private static String versionOf(List<EntityVersion> versions) {
+        return versions.isEmpty() ? null : versions.get(0).getVersion();
+    }
+
+    private static String quote(String version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    private static String md5(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5")
+                    .digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Изменение сущности затрагивает и ее ответ, и все списки этого типа
+    private void invalidateEntity(String type, Object id) {
+        invalidateTag(type + ":" + id);
+        invalidateTag(type);
+    }
+}
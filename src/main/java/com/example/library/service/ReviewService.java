@@ -4,10 +4,14 @@ import com.example.library.exception.BadRequestException;
 import com.example.library.exception.ErrorMessages;
 import com.example.library.exception.ResourceNotFoundException;
 import com.example.library.model.Book;
+import com.example.library.model.BookSnapshot;
 import com.example.library.model.Review;
+import com.example.library.model.ReviewSnapshot;
 import com.example.library.repository.BookRepository;
 import com.example.library.repository.ReviewRepository;
+import com.example.library.util.AfterCommit;
 import com.example.library.util.CacheUtil;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,19 +23,23 @@ public class ReviewService {
 
     private final ReviewRepository reviewRepository;
     private final BookRepository bookRepository;
-    private final CacheUtil<Integer, List<Review>> reviewCacheId;
-    private final CacheUtil<Integer, Book> bookCacheId;
+    private final CacheUtil<Integer, List<ReviewSnapshot>> reviewCacheId;
+    private final CacheUtil<Integer, BookSnapshot> bookCacheId;
+    private final NegativeLookupService negativeLookupService;
 
     private static final String REVIEW_ENTITY_NAME = "Review";
 
     @Autowired
     public ReviewService(ReviewRepository reviewRepository, BookRepository bookRepository,
-                         CacheUtil<Integer, List<Review>> reviewCacheId,
-                         CacheUtil<Integer, Book> bookCacheId) {
+                         CacheUtil<Integer, List<ReviewSnapshot>> reviewCacheId,
+                         CacheUtil<Integer, BookSnapshot> bookCacheId,
+                         NegativeLookupService negativeLookupService) {
         this.reviewRepository = reviewRepository;
         this.bookRepository = bookRepository;
         this.reviewCacheId = reviewCacheId;
         this.bookCacheId = bookCacheId;
+        this.negativeLookupService = negativeLookupService;
+        this.reviewCacheId.setLoader(this::loadReviews);
     }
 
     @Transactional
@@ -52,30 +60,40 @@ public class ReviewService {
         Review savedReview = reviewRepository.save(review);
 
         // Only evict caches once
-        reviewCacheId.evict(bookId);
-        bookCacheId.evict(bookId);
+        invalidateAfterCommit(bookId);
 
         return savedReview;
     }
 
-    public List<Review> getReviewsByBookId(int bookId) {
-        if (!bookRepository.existsById(bookId)) {
+    public List<ReviewSnapshot> getReviewsByBookId(int bookId, int after, int limit) {
+        if (negativeLookupService.isMissingBook(bookId)) {
             throw new ResourceNotFoundException(ErrorMessages.BOOK_NOT_FOUND.formatted(bookId));
         }
 
-        List<Review> cachedReviews = reviewCacheId.get(bookId);
-        if (cachedReviews != null) {
-            return cachedReviews;
+        List<ReviewSnapshot> reviews = reviewCacheId.computeIfAbsent(bookId, this::loadReviews);
+        if (reviews == null) {
+            negativeLookupService.markBookMissing(bookId);
+            throw new ResourceNotFoundException(ErrorMessages.BOOK_NOT_FOUND.formatted(bookId));
         }
-
-        List<Review> reviews = reviewRepository.findByBookId(bookId);
-
         if (reviews.isEmpty()) {
             throw new ResourceNotFoundException("No reviews found for book with id: " + bookId);
         }
+        // Отзывы книги целиком лежат в кэше по возрастанию id, страница выбирается из него
+        return reviews.stream()
+                .filter(review -> review.id() > after)
+                .limit(limit)
+                .toList();
+    }
 
-        reviewCacheId.put(bookId, reviews);
-        return reviews;
+    // Наличие записи в кэше означает, что книга существует; пустой список тоже кэшируется
+    private List<ReviewSnapshot> loadReviews(Integer bookId) {
+        if (!bookRepository.existsById(bookId)) {
+            return null;
+        }
+        return reviewRepository.findByBookId(bookId).stream()
+                .map(ReviewSnapshot::of)
+                .sorted(Comparator.comparingInt(ReviewSnapshot::id))
+                .toList();
     }
 
     public Review getReviewById(int id) {
@@ -98,8 +116,7 @@ public class ReviewService {
         existingReview.setMessage(review.getMessage());
         Review updatedReview = reviewRepository.save(existingReview);
 
-        reviewCacheId.evict(existingReview.getBook().getId());
-        bookCacheId.evict(existingReview.getBook().getId());
+        invalidateAfterCommit(existingReview.getBook().getId());
 
         return updatedReview;
     }
@@ -113,8 +130,7 @@ public class ReviewService {
         int bookId = review.getBook().getId();
         reviewRepository.delete(review);
 
-        reviewCacheId.evict(bookId);
-        bookCacheId.evict(bookId);
+        invalidateAfterCommit(bookId);
     }
 
     @Transactional
@@ -128,7 +144,7 @@ public class ReviewService {
                 .orElseThrow(() -> new ResourceNotFoundException(
                         ErrorMessages.BOOK_NOT_FOUND.formatted(bookId)));
 
-        return reviews.stream()
+        List<Review> savedReviews = reviews.stream()
                 .peek(review -> {
                     if (review == null) {
                         throw new BadRequestException(ErrorMessages.ENTITY_CANNOT_BE_NULL
@@ -143,6 +159,17 @@ public class ReviewService {
                     return reviewRepository.save(review);
                 })
                 .collect(Collectors.toList());
+
+        invalidateAfterCommit(bookId);
+
+        return savedReviews;
     }
 
-}
\ No newline at end of file
+    // Отзывы и снимок книги сбрасываются только после фиксации транзакции
+    private void invalidateAfterCommit(int bookId) {
+        AfterCommit.run(() -> {
+            reviewCacheId.invalidate(bookId);
+            bookCacheId.invalidate(bookId);
+        });
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.library.service;
+
+import com.example.library.model.Author;
+import com.example.library.model.Book;
+import com.example.library.repository.BookRepository;
+import com.example.library.util.AfterCommit;
+import com.example.library.util.CacheUtil;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import org.springframework.stereotype.Service;
+
+/**
+ * Вторичные индексы в кэше: нормализованное название книги и нормализованные имя и
+ * фамилия автора отображаются на id книг. Пустые результаты тоже кэшируются, поэтому
+ * при создании, изменении и удалении книг и авторов затронутые ключи инвалидируются
+ * как по старым, так и по новым значениям. Ключи вычисляются сразу, а сама инвалидация
+ * выполняется после фиксации транзакции.
+ */
+@Service
+public class SecondaryIndexService {
+
+    private final BookRepository bookRepository;
+    private final CacheUtil<String, List<Integer>> bookTitleIndex;
+    private final CacheUtil<String, List<Integer>> authorBooksIndex;
+
+    public SecondaryIndexService(BookRepository bookRepository,
+                                 CacheUtil<String, List<Integer>> bookTitleIndex,
+                                 CacheUtil<String, List<Integer>> authorBooksIndex) {
+        this.bookRepository = bookRepository;
+        this.bookTitleIndex = bookTitleIndex;
+        this.authorBooksIndex = authorBooksIndex;
+    }
+
+    public List<Integer> findBookIdsByTitle(String title) {
+        return bookTitleIndex.computeIfAbsent(normalizeTitle(title),
+                key -> List.copyOf(bookRepository.findIdsByNormalizedTitle(key)));
+    }
+
+    public List<Integer> findBookIdsByAuthor(String name, String surname) {
+        String normalizedName = normalizeName(name);
+        String normalizedSurname = normalizeName(surname);
+        return authorBooksIndex.computeIfAbsent(authorKey(normalizedName, normalizedSurname),
+                key -> List.copyOf(bookRepository.findIdsByNormalizedAuthorName(
+                        normalizedName, normalizedSurname)));
+    }
+
+    public void invalidateTitle(String title) {
+        if (title != null) {
+            String key = normalizeTitle(title);
+            AfterCommit.run(() -> bookTitleIndex.invalidate(key));
+        }
+    }
+
+    public void invalidateAuthor(String name, String surname) {
+        if (name != null && surname != null) {
+            String key = authorKey(normalizeName(name), normalizeName(surname));
+            AfterCommit.run(() -> authorBooksIndex.invalidate(key));
+        }
+    }
+
+    public void invalidateAuthors(Collection<Author> authors) {
+        if (authors != null) {
+            authors.forEach(author -> invalidateAuthor(author.getName(), author.getSurname()));
+        }
+    }
+
+    public void invalidateBook(Book book) {
+        invalidateTitle(book.getTitle());
+        invalidateAuthors(book.getAuthors());
+    }
+
+    static String normalizeTitle(String title) {
+        return title.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Совпадает с LOWER(...) в запросе, по которому строится индекс
+    static String normalizeName(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    // Длина имени в ключе исключает совпадение ключей для разных пар имя-фамилия
+    private static String authorKey(String name, String surname) {
+        return name.length() + ":" + name + surname;
+    }
+}
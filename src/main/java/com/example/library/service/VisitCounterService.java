@@ -1,13 +1,37 @@
 package com.example.library.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
 public class VisitCounterService {
+    private static final Logger logger = LoggerFactory.getLogger(VisitCounterService.class);
+
     private final Map<String, AtomicInteger> urlCounterMap = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper;
+    private final Path storageFile;
+
+    public VisitCounterService(
+            ObjectMapper objectMapper,
+            @Value("${library.visit-counter.storage-file:./data/visit-counters.json}")
+            String storageFile) {
+        this.objectMapper = objectMapper;
+        this.storageFile = Paths.get(storageFile);
+    }
 
     public void incrementCounter(String url) {
         urlCounterMap.computeIfAbsent(url, k -> new AtomicInteger(0)).incrementAndGet();
@@ -22,4 +46,34 @@ public class VisitCounterService {
         urlCounterMap.forEach((url, counter) -> result.put(url, counter.get()));
         return result;
     }
-}
\ No newline at end of file
+
+    @PostConstruct
+    public void load() {
+        if (!Files.exists(storageFile)) {
+            return;
+        }
+        try {
+            Map<String, Integer> counters = objectMapper.readValue(storageFile.toFile(),
+                    new TypeReference<Map<String, Integer>>() { });
+            counters.forEach((url, count) -> urlCounterMap
+                    .computeIfAbsent(url, k -> new AtomicInteger(0)).addAndGet(count));
+            logger.info("Loaded {} visit counters from {}", counters.size(), storageFile);
+        } catch (IOException e) {
+            logger.warn("Failed to load visit counters from {}", storageFile, e);
+        }
+    }
+
+    @PreDestroy
+    public void save() {
+        try {
+            Path parent = storageFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tempFile = Files.createTempFile(parent, "visit-counters", ".tmp");
+            objectMapper.writeValue(tempFile.toFile(), getAllCounters());
+            Files.move(tempFile, storageFile, StandardCopyOption.REPLACE_EXISTING);
+            logger.info("Saved {} visit counters to {}", urlCounterMap.size(), storageFile);
+        } catch (IOException e) {
+            logger.warn("Failed to save visit counters to {}", storageFile, e);
+        }
+    }
+}
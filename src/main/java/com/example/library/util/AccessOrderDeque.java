@@ -0,0 +1,64 @@
+package com.example.library.util;
+
+final class AccessOrderDeque<K, V> {
+
+    private CacheNode<K, V> first;
+    private CacheNode<K, V> last;
+    private int size;
+
+    boolean contains(CacheNode<K, V> node) {
+        return node.prev != null || node.next != null || node == first;
+    }
+
+    CacheNode<K, V> peekFirst() {
+        return first;
+    }
+
+    CacheNode<K, V> peekLast() {
+        return last;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void linkLast(CacheNode<K, V> node) {
+        node.prev = last;
+        node.next = null;
+        if (last == null) {
+            first = node;
+        } else {
+            last.next = node;
+        }
+        last = node;
+        size++;
+    }
+
+    void unlink(CacheNode<K, V> node) {
+        if (!contains(node)) {
+            return;
+        }
+        CacheNode<K, V> prev = node.prev;
+        CacheNode<K, V> next = node.next;
+        if (prev == null) {
+            first = next;
+        } else {
+            prev.next = next;
+        }
+        if (next == null) {
+            last = prev;
+        } else {
+            next.prev = prev;
+        }
+        node.prev = null;
+        node.next = null;
+        size--;
+    }
+
+    void moveToBack(CacheNode<K, V> node) {
+        if (node != last && contains(node)) {
+            unlink(node);
+            linkLast(node);
+        }
+    }
+}
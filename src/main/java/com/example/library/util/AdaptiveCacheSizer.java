@@ -0,0 +1,152 @@
+package com.example.library.util;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Подстраивает емкость кэшей под заполненность кучи после сборки мусора. Если занято
+ * больше highWatermark, все кэши сжимаются на одну долю, рассчитанную по оценке занятой
+ * ими памяти так, чтобы освободить превышение над серединой между порогами, но не ниже
+ * своей минимальной доли. Ниже lowWatermark емкость постепенно возвращается к заданной
+ * в настройках. Между порогами емкость не меняется, чтобы не раскачивать кэши.
+ */
+public class AdaptiveCacheSizer {
+
+    private static final double MAXIMUM_SHRINK = 0.5;
+    private static final double GROW_STEP = 0.1;
+    private static final long MIN_ADJUST_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+    private final Logger logger = LoggerFactory.getLogger(AdaptiveCacheSizer.class);
+    private final double lowWatermark;
+    private final double highWatermark;
+    private final List<Registration<?>> registrations = new CopyOnWriteArrayList<>();
+    private boolean adjusted;
+    private long lastAdjustTime;
+    LongSupplier ticker = System::nanoTime;
+
+    public AdaptiveCacheSizer(double lowWatermark, double highWatermark) {
+        if (!(lowWatermark > 0 && lowWatermark < highWatermark && highWatermark < 1)) {
+            throw new IllegalArgumentException(
+                    "Пороги должны удовлетворять 0 < lowWatermark < highWatermark < 1");
+        }
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+    }
+
+    /**
+     * Подключает кэш к подстройке. minimumScale - доля заданной емкости, ниже которой
+     * кэш не сжимается; при 1 емкость кэша не меняется, но его память учитывается.
+     */
+    public <V> void register(CacheUtil<?, V> cache, double minimumScale,
+                             ToLongFunction<? super V> entryBytes) {
+        if (!(minimumScale > 0 && minimumScale <= 1)) {
+            throw new IllegalArgumentException("minimumScale должно быть в (0, 1]");
+        }
+        registrations.add(new Registration<>(cache, minimumScale, entryBytes));
+    }
+
+    public synchronized void onHeapUsage(long usedBytes, long maxBytes) {
+        if (maxBytes <= 0) {
+            return;
+        }
+        long now = ticker.getAsLong();
+        if (adjusted && now - lastAdjustTime < MIN_ADJUST_INTERVAL) {
+            return;
+        }
+        double occupancy = (double) usedBytes / maxBytes;
+        boolean changed;
+        if (occupancy > highWatermark) {
+            double target = (lowWatermark + highWatermark) / 2;
+            changed = shrink((long) ((occupancy - target) * maxBytes), occupancy);
+        } else if (occupancy < lowWatermark) {
+            changed = grow(occupancy);
+        } else {
+            return;
+        }
+        if (changed) {
+            adjusted = true;
+            lastAdjustTime = now;
+        }
+    }
+
+    public long estimateRetainedBytes() {
+        long total = 0;
+        for (Registration<?> registration : registrations) {
+            total += registration.retainedBytes();
+        }
+        return total;
+    }
+
+    public long estimateRetainedBytes(String cacheName) {
+        for (Registration<?> registration : registrations) {
+            if (registration.cache.getName().equals(cacheName)) {
+                return registration.retainedBytes();
+            }
+        }
+        return 0;
+    }
+
+    private boolean shrink(long excessBytes, double occupancy) {
+        long shrinkable = 0;
+        for (Registration<?> registration : registrations) {
+            if (registration.cache.getCapacityScale() > registration.minimumScale) {
+                shrinkable += registration.retainedBytes();
+            }
+        }
+        if (shrinkable == 0) {
+            return false;
+        }
+        double fraction = Math.min(MAXIMUM_SHRINK, (double) excessBytes / shrinkable);
+        for (Registration<?> registration : registrations) {
+            double scale = registration.cache.getCapacityScale();
+            registration.apply(Math.max(registration.minimumScale, scale * (1 - fraction)));
+        }
+        logger.info("Куча занята на {}%, емкость кэшей уменьшена на {}%",
+                Math.round(occupancy * 100), Math.round(fraction * 100));
+        return true;
+    }
+
+    private boolean grow(double occupancy) {
+        boolean changed = false;
+        for (Registration<?> registration : registrations) {
+            double scale = registration.cache.getCapacityScale();
+            if (scale < 1) {
+                registration.apply(Math.min(1, scale + GROW_STEP));
+                changed = true;
+            }
+        }
+        if (changed) {
+            logger.info("Куча занята на {}%, емкость кэшей увеличена",
+                    Math.round(occupancy * 100));
+        }
+        return changed;
+    }
+
+    private static final class Registration<V> {
+        final CacheUtil<?, V> cache;
+        final double minimumScale;
+        final ToLongFunction<? super V> entryBytes;
+
+        Registration(CacheUtil<?, V> cache, double minimumScale,
+                     ToLongFunction<? super V> entryBytes) {
+            this.cache = cache;
+            this.minimumScale = minimumScale;
+            this.entryBytes = entryBytes;
+        }
+
+        long retainedBytes() {
+            return cache.estimateRetainedBytes(entryBytes);
+        }
+
+        void apply(double scale) {
+            if (scale != cache.getCapacityScale()) {
+                cache.setCapacityScale(scale);
+            }
+        }
+    }
+}
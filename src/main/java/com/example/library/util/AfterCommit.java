@@ -0,0 +1,38 @@
+package com.example.library.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Откладывает изменения кэша до фиксации текущей транзакции: при откате они отбрасываются,
+ * поэтому в кэш не попадают данные, которых в базе так и не появилось. Вне транзакции
+ * действие выполняется сразу. Аргументы (ключи, снимки) нужно вычислить до вызова, пока
+ * сущности еще привязаны к сессии.
+ */
+public final class AfterCommit {
+
+    private static final Logger logger = LoggerFactory.getLogger(AfterCommit.class);
+
+    private AfterCommit() {
+    }
+
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // Данные уже зафиксированы: ошибка кэша не должна превращать запрос в ошибку
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    logger.warn("Не удалось обновить кэш после фиксации транзакции", e);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.library.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Потокобезопасный фильтр Блума по целочисленным ключам. Ложноотрицательных ответов не
+ * бывает; доля ложноположительных растет, если добавить больше expectedInsertions ключей.
+ * Удаление не поддерживается, фильтр пересоздается целиком.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions должно быть положительным");
+        }
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("falsePositiveProbability должно быть в (0, 1)");
+        }
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability)
+                / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (optimalBits + 63) >>> 6));
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words << 6;
+        this.hashCount = Math.max(1,
+                (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    public void put(int key) {
+        long hash = mix(key);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32) | 1;
+        for (int i = 1; i <= hashCount; i++) {
+            long index = bitIndex(first + i * second);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(int key) {
+        long hash = mix(key);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32) | 1;
+        for (int i = 1; i <= hashCount; i++) {
+            long index = bitIndex(first + i * second);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long bitIndex(int combinedHash) {
+        return (combinedHash & Integer.MAX_VALUE) % bitCount;
+    }
+
+    // Финализатор SplitMix64: распределяет последовательные id по всему фильтру
+    private static long mix(int key) {
+        long z = key + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
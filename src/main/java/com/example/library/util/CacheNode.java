@@ -0,0 +1,38 @@
+package com.example.library.util;
+
+final class CacheNode<K, V> {
+
+    final K key;
+    volatile V value;
+
+    // Связи в очереди доступа, изменяются только под evictionLock
+    CacheNode<K, V> prev;
+    CacheNode<K, V> next;
+    // Очередь политики, в которой находится запись (используется W-TinyLFU)
+    int queue;
+    // Состояние учета в политике, изменяется только под evictionLock
+    boolean inPolicy;
+    int policyWeight;
+
+    volatile long writeTime;
+    volatile long accessTime;
+    // Закрепленная запись не вытесняется, не истекает и не входит в политику
+    volatile boolean pinned;
+
+    private volatile boolean retired;
+
+    CacheNode(K key, V value, long now) {
+        this.key = key;
+        this.value = value;
+        this.writeTime = now;
+        this.accessTime = now;
+    }
+
+    boolean isRetired() {
+        return retired;
+    }
+
+    void retire() {
+        retired = true;
+    }
+}
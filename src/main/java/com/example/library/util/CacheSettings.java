@@ -0,0 +1,57 @@
+package com.example.library.util;
+
+import java.time.Duration;
+
+/**
+ * Параметры кэша. Нулевые ограничения и пустые длительности означают, что соответствующее
+ * ограничение не применяется; хотя бы одно из maximumSize и maximumWeight должно быть задано.
+ * staleWhileRevalidate и staleIfError задают, сколько истекшая запись еще хранится: в первом
+ * окне она сразу отдается с асинхронным обновлением, во втором - только если загрузка
+ * завершилась ошибкой или не уложилась в loadTimeout.
+ */
+public record CacheSettings(
+        EvictionMode mode,
+        long maximumSize,
+        long maximumWeight,
+        Duration expireAfterWrite,
+        Duration expireAfterAccess,
+        Duration refreshAfterWrite,
+        Duration staleWhileRevalidate,
+        Duration staleIfError,
+        Duration loadTimeout
+) {
+
+    public CacheSettings {
+        if (mode == null) {
+            throw new IllegalArgumentException("Не задан режим вытеснения");
+        }
+        if (maximumSize < 0 || maximumWeight < 0) {
+            throw new IllegalArgumentException("Ограничения кэша не могут быть отрицательными");
+        }
+        if (maximumSize == 0 && maximumWeight == 0) {
+            throw new IllegalArgumentException(
+                    "Должно быть задано maximumSize или maximumWeight");
+        }
+        expireAfterWrite = positiveOrNull(expireAfterWrite);
+        expireAfterAccess = positiveOrNull(expireAfterAccess);
+        refreshAfterWrite = positiveOrNull(refreshAfterWrite);
+        staleWhileRevalidate = positiveOrNull(staleWhileRevalidate);
+        staleIfError = positiveOrNull(staleIfError);
+        loadTimeout = positiveOrNull(loadTimeout);
+    }
+
+    public CacheSettings(EvictionMode mode, long maximumSize, long maximumWeight,
+                         Duration expireAfterWrite, Duration expireAfterAccess,
+                         Duration refreshAfterWrite) {
+        this(mode, maximumSize, maximumWeight, expireAfterWrite, expireAfterAccess,
+                refreshAfterWrite, null, null, null);
+    }
+
+    public static CacheSettings ofMaximumSize(long maximumSize, EvictionMode mode) {
+        return new CacheSettings(mode, maximumSize, 0, null, null, null);
+    }
+
+    private static Duration positiveOrNull(Duration duration) {
+        return duration == null || duration.isZero() || duration.isNegative() ? null : duration;
+    }
+}
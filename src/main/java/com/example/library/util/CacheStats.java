@@ -0,0 +1,27 @@
+package com.example.library.util;
+
+public record CacheStats(
+        long hitCount,
+        long missCount,
+        long loadSuccessCount,
+        long loadFailureCount,
+        long totalLoadTimeNanos,
+        long evictionCount,
+        long size,
+        long weightedSize
+) {
+
+    public long requestCount() {
+        return hitCount + missCount;
+    }
+
+    public double hitRate() {
+        long requests = requestCount();
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    public double averageLoadPenaltyMillis() {
+        long loads = loadSuccessCount + loadFailureCount;
+        return loads == 0 ? 0.0 : totalLoadTimeNanos / 1_000_000.0 / loads;
+    }
+}
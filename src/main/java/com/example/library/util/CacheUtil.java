@@ -1,57 +1,918 @@
 package com.example.library.util;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Потокобезопасный кэш с вытеснением по LRU или W-TinyLFU. Чтение идет напрямую из
+ * ConcurrentHashMap, а обновление политики вытеснения буферизуется и применяется пакетно
+ * под единственной блокировкой, которую читающие потоки только пытаются захватить и никогда не ждут.
+ * Ограничения по размеру, весу и времени жизни задаются через {@link CacheSettings} и могут
+ * меняться во время работы. Если задано staleWhileRevalidate или staleIfError, истекшие
+ * записи хранятся дольше и отдаются через {@link #computeIfAbsent}, когда база недоступна
+ * или отвечает медленно; такие чтения отмечаются в {@link StaleReads}. Закрепленные
+ * ключи ({@link #pin}) не вытесняются и не истекают.
+ */
 public class CacheUtil<K, V> {
 
-    private final LinkedHashMap<K, V> cache;
+    private static final long MIN_SWEEP_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+    private static final int RETAINED_BYTES_SAMPLE = 256;
+    private static final long MIN_POLICY_SIZE = 16;
+    // Узел ConcurrentHashMap и CacheNode со ссылками и полями времени
+    private static final long ENTRY_OVERHEAD_BYTES = 96;
+
+    private final String name;
+    private final ConcurrentHashMap<K, CacheNode<K, V>> data;
+    private final StripedReadBuffer<CacheNode<K, V>> readBuffer = new StripedReadBuffer<>();
+    private final Queue<Runnable> writeBuffer = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final ToIntFunction<? super V> weigher;
+    private final Map<K, CompletableFuture<V>> refreshes = new ConcurrentHashMap<>();
+    private final Map<K, Load<V>> loads = new ConcurrentHashMap<>();
+    private final StatsCounter statsCounter = new StatsCounter();
+    private final List<InvalidationListener> invalidationListeners = new CopyOnWriteArrayList<>();
+    private final Set<K> pinnedKeys = ConcurrentHashMap.newKeySet();
     private final Logger logger = LoggerFactory.getLogger(CacheUtil.class);
 
+    private volatile CacheSettings settings;
+    private volatile long expireAfterWriteNanos;
+    private volatile long expireAfterAccessNanos;
+    private volatile long refreshAfterWriteNanos;
+    private volatile long staleWhileRevalidateNanos;
+    private volatile long staleRetentionNanos;
+    private volatile long loadTimeoutNanos;
+    // Доля ограничений из настроек, которая действует сейчас; уменьшается при нехватке памяти
+    private volatile double capacityScale = 1.0;
+    private volatile Function<? super K, ? extends V> loader;
+    private Executor executor = ForkJoinPool.commonPool();
+    LongSupplier ticker = System::nanoTime;
+
+    // Изменяются только под evictionLock
+    private EvictionPolicy<K, V> policy;
+    // Число записей, под которое настроены сегменты политики и FrequencySketch
+    private long policyMaximum;
+    private volatile long weightedSize;
+    private long sweepInterval;
+    private long nextSweepTime;
+
     public CacheUtil(int capacity) {
-        cache = new LinkedHashMap<>(capacity, 0.75f, true) {
-            @Override
-            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
-                boolean shouldRemove = size() > capacity;
-                if (shouldRemove) {
-                    logger.debug("Удаление устаревшего элемента из кэша. Ключ: {}",
-                            eldest.getKey());
-                }
-                return shouldRemove;
-            }
-        };
+        this(capacity, EvictionMode.LRU);
+    }
+
+    public CacheUtil(int capacity, EvictionMode mode) {
+        this("cache", CacheSettings.ofMaximumSize(capacity, mode));
+    }
+
+    public CacheUtil(String name, CacheSettings settings) {
+        this(name, settings, value -> 1);
+    }
+
+    public CacheUtil(String name, CacheSettings settings, ToIntFunction<? super V> weigher) {
+        this.name = Objects.requireNonNull(name);
+        this.weigher = Objects.requireNonNull(weigher);
+        this.data = new ConcurrentHashMap<>(settings.maximumSize() > 0
+                ? (int) Math.min(settings.maximumSize(), 1 << 16)
+                : 16);
+        evictionLock.lock();
+        try {
+            configure(settings);
+        } finally {
+            evictionLock.unlock();
+        }
     }
 
     public void put(K key, V value) {
-        cache.put(key, value);
-        logger.debug("Объект добавлен в кэш. Ключ: {}", key);
-        logger.trace("Добавлен объект: {} = {}", key, value);
+        put(key, value, Duration.ZERO);
     }
 
-    public V get(K key) {
-        V value = cache.get(key);
-        if (value != null) {
-            logger.debug("Объект найден в кэше. Ключ: {}", key);
-            logger.trace("Получен объект: {} = {}", key, value);
+    /**
+     * Добавляет значение, записанное writeAge назад: срок жизни и обновление отсчитываются
+     * от исходной записи, а не от момента вызова.
+     */
+    public void put(K key, V value, Duration writeAge) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+
+        long now = ticker.getAsLong();
+        long writeTime = now - Math.max(0, writeAge.toNanos());
+        int weight = weigher.applyAsInt(value);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        CacheNode<K, V>[] added = new CacheNode[1];
+        CacheNode<K, V> node = data.compute(key, (k, prior) -> {
+            if (prior == null) {
+                added[0] = new CacheNode<>(k, value, now);
+                added[0].writeTime = writeTime;
+                added[0].pinned = pinnedKeys.contains(k);
+                return added[0];
+            }
+            prior.value = value;
+            prior.writeTime = writeTime;
+            prior.accessTime = now;
+            return prior;
+        });
+
+        if (added[0] != null) {
+            afterWrite(() -> onAdd(node, weight));
         } else {
-            logger.debug("Объект не найден в кэше. Ключ: {}", key);
+            afterWrite(() -> onUpdate(node, weight));
+        }
+    }
+
+    public V get(K key) {
+        CacheNode<K, V> node = data.get(key);
+        if (node == null) {
+            statsCounter.recordMiss();
+            return null;
         }
+
+        long now = 0;
+        if (isTimed()) {
+            now = ticker.getAsLong();
+            if (isExpired(node, now)) {
+                // Истекшая запись остается в кэше, пока ее может отдать computeIfAbsent
+                if (overdue(node, now) >= staleRetentionNanos) {
+                    expire(node);
+                }
+                statsCounter.recordMiss();
+                return null;
+            }
+            if (expireAfterAccessNanos > 0) {
+                node.accessTime = now;
+            }
+        }
+
+        V value = node.value;
+        afterRead(node);
+        if (refreshAfterWriteNanos > 0) {
+            refreshIfNeeded(node, now);
+        }
+        statsCounter.recordHit();
         return value;
     }
 
+    /**
+     * Возвращает значение из кэша, а при промахе загружает его функцией mappingFunction.
+     * Параллельные промахи по одному ключу объединяются: функция вызывается один раз,
+     * остальные потоки ждут ее результата. Null не кэшируется, исключение получают все
+     * ожидающие потоки.
+     *
+     * <p>Истекшая запись в окне staleWhileRevalidate отдается сразу, а mappingFunction
+     * обновляет ее асинхронно. Позже, в окне staleIfError, запись загружается заново, но
+     * при ошибке загрузки или превышении loadTimeout отдается истекшее значение.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+
+        CacheNode<K, V> stale = staleNode(key);
+        if (stale != null && overdue(stale, ticker.getAsLong()) < staleWhileRevalidateNanos) {
+            refresh(stale, mappingFunction);
+            return serveStale(stale);
+        }
+
+        Load<V> load = new Load<>();
+        Load<V> inFlight = loads.putIfAbsent(key, load);
+        if (inFlight != null) {
+            return stale == null ? await(inFlight.future) : awaitOrStale(inFlight.future, stale);
+        }
+        if (stale == null) {
+            return load(key, load, mappingFunction);
+        }
+        // Загрузка идет в фоне, чтобы ожидание можно было ограничить; ее результат попадет
+        // в кэш, даже если вызывающий поток уже получил истекшее значение
+        executor.execute(() -> {
+            try {
+                load(key, load, mappingFunction);
+            } catch (RuntimeException e) {
+                logger.warn("Не удалось загрузить объект в кэш {}. Ключ: {}", name, key, e);
+            }
+        });
+        return awaitOrStale(load.future, stale);
+    }
+
+    private V load(K key, Load<V> load, Function<? super K, ? extends V> mappingFunction) {
+        long startTime = ticker.getAsLong();
+        try {
+            // Значение могло появиться между промахом и регистрацией загрузки
+            V present = getQuietly(key);
+            if (present != null) {
+                load.future.complete(present);
+                return present;
+            }
+            V loaded = mappingFunction.apply(key);
+            statsCounter.recordLoadSuccess(ticker.getAsLong() - startTime);
+            if (loaded == null) {
+                // Истекшая запись объекта, которого больше нет, не должна отдаваться дальше
+                removeIfExpired(key);
+            } else if (!load.invalidated) {
+                put(key, loaded);
+                // evict() во время загрузки мог не увидеть только что добавленное значение
+                if (load.invalidated) {
+                    evict(key);
+                }
+            }
+            load.future.complete(loaded);
+            return loaded;
+        } catch (RuntimeException | Error e) {
+            statsCounter.recordLoadFailure(ticker.getAsLong() - startTime);
+            load.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(key, load);
+        }
+    }
+
+    /**
+     * Пакетный вариант {@link #computeIfAbsent}: все промахи загружаются одним вызовом
+     * mappingFunction, которому передаются только отсутствующие ключи. Загрузки
+     * регистрируются до вызова, поэтому инвалидация во время него не даст сохранить
+     * прочитанное раньше значение. Ключи, уже загружаемые другим потоком, ожидаются.
+     * Ключей, которых нет в результате, нет и в возвращаемой карте. Истекшие записи не
+     * отдаются, а загружаются заново вместе с остальными промахами.
+     */
+    public Map<K, V> computeAllIfAbsent(Collection<? extends K> keys,
+                                        Function<? super Set<K>, ? extends Map<K, V>>
+                                                mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        Map<K, V> found = new HashMap<>();
+        Map<K, Load<V>> owned = new LinkedHashMap<>();
+        Map<K, CompletableFuture<V>> waiting = new HashMap<>();
+        for (K key : keys) {
+            if (found.containsKey(key) || owned.containsKey(key) || waiting.containsKey(key)) {
+                continue;
+            }
+            V value = get(key);
+            if (value != null) {
+                found.put(key, value);
+                continue;
+            }
+            Load<V> load = new Load<>();
+            Load<V> inFlight = loads.putIfAbsent(key, load);
+            if (inFlight != null) {
+                waiting.put(key, inFlight.future);
+                continue;
+            }
+            // Значение могло появиться между промахом и регистрацией загрузки
+            V present = getQuietly(key);
+            if (present != null) {
+                load.future.complete(present);
+                loads.remove(key, load);
+                found.put(key, present);
+            } else {
+                owned.put(key, load);
+            }
+        }
+
+        if (!owned.isEmpty()) {
+            long startTime = ticker.getAsLong();
+            Map<K, V> loaded;
+            try {
+                loaded = mappingFunction.apply(Collections.unmodifiableSet(owned.keySet()));
+                statsCounter.recordLoadSuccess(ticker.getAsLong() - startTime);
+            } catch (RuntimeException | Error e) {
+                statsCounter.recordLoadFailure(ticker.getAsLong() - startTime);
+                owned.forEach((key, load) -> {
+                    load.future.completeExceptionally(e);
+                    loads.remove(key, load);
+                });
+                throw e;
+            }
+            owned.forEach((key, load) -> {
+                V value = loaded == null ? null : loaded.get(key);
+                try {
+                    if (value == null) {
+                        removeIfExpired(key);
+                    } else {
+                        found.put(key, value);
+                        if (!load.invalidated) {
+                            put(key, value);
+                            if (load.invalidated) {
+                                evict(key);
+                            }
+                        }
+                    }
+                    load.future.complete(value);
+                } finally {
+                    loads.remove(key, load);
+                }
+            });
+        }
+
+        waiting.forEach((key, future) -> {
+            V value = await(future);
+            if (value != null) {
+                found.put(key, value);
+            }
+        });
+        return found;
+    }
+
     public void evict(K key) {
-        if (cache.containsKey(key)) {
-            cache.remove(key);
-            logger.debug("Объект удален из кэша. Ключ: {}", key);
-        } else {
-            logger.debug("Объект не найден в кэше. Ключ: {}", key);
+        Load<V> load = loads.get(key);
+        if (load != null) {
+            load.invalidated = true;
+        }
+        CacheNode<K, V> node = data.remove(key);
+        if (node != null) {
+            node.retire();
+            afterWrite(() -> onRemove(node));
         }
     }
 
+    /**
+     * Удаляет запись и сообщает об этом слушателям, например шине инвалидации, которая
+     * удаляет ту же запись на остальных узлах. Для удаления только в локальном кэше
+     * используется {@link #evict}.
+     */
+    public void invalidate(K key) {
+        evict(key);
+        for (InvalidationListener listener : invalidationListeners) {
+            try {
+                listener.onInvalidate(name, key);
+            } catch (RuntimeException e) {
+                logger.warn("Ошибка слушателя инвалидации кэша {}. Ключ: {}", name, key, e);
+            }
+        }
+    }
+
+    /**
+     * Обходит неистекшие записи без учета в статистике и политике вытеснения. Записи,
+     * добавленные или удаленные во время обхода, могут как попасть в него, так и нет.
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        long now = isTimed() ? ticker.getAsLong() : 0;
+        for (CacheNode<K, V> node : data.values()) {
+            if (!isTimed() || !isExpired(node, now)) {
+                action.accept(node.key, node.value);
+            }
+        }
+    }
+
+    /** Как {@link #forEach(BiConsumer)}, но сообщает и давность записи значения. */
+    public void forEachWithAge(EntryVisitor<? super K, ? super V> action) {
+        long now = ticker.getAsLong();
+        for (CacheNode<K, V> node : data.values()) {
+            if (!isTimed() || !isExpired(node, now)) {
+                action.visit(node.key, node.value, Duration.ofNanos(now - node.writeTime));
+            }
+        }
+    }
+
+    /**
+     * Закрепляет ключ: его запись, в том числе загруженная позже, не вытесняется, не истекает
+     * и не учитывается в maximumSize и maximumWeight. Актуальность закрепленной записи
+     * поддерживают инвалидация и refreshAfterWrite.
+     */
+    public void pin(K key) {
+        Objects.requireNonNull(key);
+        if (!pinnedKeys.add(key)) {
+            return;
+        }
+        CacheNode<K, V> node = data.computeIfPresent(key, (k, current) -> {
+            current.pinned = true;
+            return current;
+        });
+        if (node != null) {
+            afterWrite(() -> onPin(node));
+        }
+    }
+
+    public void unpin(K key) {
+        if (!pinnedKeys.remove(key)) {
+            return;
+        }
+        CacheNode<K, V> node = data.computeIfPresent(key, (k, current) -> {
+            current.pinned = false;
+            return current;
+        });
+        if (node != null) {
+            int weight = weigher.applyAsInt(node.value);
+            afterWrite(() -> onAdd(node, weight));
+        }
+    }
+
+    public Set<K> getPinnedKeys() {
+        return Set.copyOf(pinnedKeys);
+    }
+
+    public void addInvalidationListener(InvalidationListener listener) {
+        invalidationListeners.add(Objects.requireNonNull(listener));
+    }
+
     public void clear() {
-        cache.clear();
+        loads.values().forEach(load -> load.invalidated = true);
+        evictionLock.lock();
+        try {
+            readBuffer.drainTo(node -> { });
+            drainWriteBuffer();
+            // Записи, добавленные параллельно после вычитывания буфера, остаются в кэше
+            CacheNode<K, V> node;
+            while ((node = policy.poll()) != null) {
+                unaccount(node);
+                if (data.remove(node.key, node)) {
+                    node.retire();
+                }
+            }
+            // Закрепленные записи не входят в политику; сами ключи остаются закрепленными
+            for (CacheNode<K, V> pinned : data.values()) {
+                if (pinned.pinned && data.remove(pinned.key, pinned)) {
+                    pinned.retire();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
         logger.info("Кэш полностью очищен");
     }
-}
\ No newline at end of file
+
+    /**
+     * Задает функцию загрузки, которой кэш обновляет записи старше refreshAfterWrite.
+     * Обновление выполняется асинхронно, пока читатели получают текущее значение.
+     * Если функция вернула null, запись удаляется.
+     */
+    public void setLoader(Function<? super K, ? extends V> loader) {
+        this.loader = loader;
+    }
+
+    public void applySettings(CacheSettings newSettings) {
+        Objects.requireNonNull(newSettings);
+        evictionLock.lock();
+        try {
+            configure(newSettings);
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+        logger.info("Настройки кэша {} обновлены: {}", name, newSettings);
+    }
+
+    public CacheStats stats() {
+        return statsCounter.snapshot(data.size(), weightedSize);
+    }
+
+    /**
+     * Уменьшает действующие maximumSize и maximumWeight до доли scale от заданных в
+     * настройках, не меняя сами настройки. Лишние записи вытесняются сразу.
+     */
+    public void setCapacityScale(double scale) {
+        if (!(scale > 0 && scale <= 1)) {
+            throw new IllegalArgumentException("scale должно быть в (0, 1]");
+        }
+        evictionLock.lock();
+        try {
+            capacityScale = scale;
+            resizePolicy(expectedSize(settings));
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public double getCapacityScale() {
+        return capacityScale;
+    }
+
+    /**
+     * Оценивает память, занятую записями, по выборке из первых записей; entryBytes
+     * оценивает размер одного значения.
+     */
+    public long estimateRetainedBytes(ToLongFunction<? super V> entryBytes) {
+        int size = data.size();
+        long sampledBytes = 0;
+        int sampled = 0;
+        for (CacheNode<K, V> node : data.values()) {
+            sampledBytes += entryBytes.applyAsLong(node.value) + ENTRY_OVERHEAD_BYTES;
+            if (++sampled == RETAINED_BYTES_SAMPLE) {
+                break;
+            }
+        }
+        return sampled == 0 ? 0 : (long) ((double) sampledBytes / sampled * size);
+    }
+
+    public CacheSettings getSettings() {
+        return settings;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    void cleanUp() {
+        evictionLock.lock();
+        try {
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    int policySize() {
+        return policy.size();
+    }
+
+    long weightedSize() {
+        return weightedSize;
+    }
+
+    void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    private void configure(CacheSettings newSettings) {
+        CacheSettings oldSettings = settings;
+        long expectedSize = expectedSize(newSettings);
+
+        if (oldSettings == null || oldSettings.mode() != newSettings.mode()) {
+            EvictionPolicy<K, V> newPolicy = newSettings.mode() == EvictionMode.TINY_LFU
+                    ? new WindowTinyLfuPolicy<>(expectedSize)
+                    : new LruPolicy<>();
+            if (policy != null) {
+                CacheNode<K, V> node;
+                while ((node = policy.poll()) != null) {
+                    newPolicy.onAdd(node);
+                }
+            }
+            policy = newPolicy;
+            policyMaximum = expectedSize;
+        } else {
+            resizePolicy(expectedSize);
+        }
+
+        expireAfterWriteNanos = toNanos(newSettings.expireAfterWrite());
+        expireAfterAccessNanos = toNanos(newSettings.expireAfterAccess());
+        refreshAfterWriteNanos = toNanos(newSettings.refreshAfterWrite());
+        staleWhileRevalidateNanos = toNanos(newSettings.staleWhileRevalidate());
+        staleRetentionNanos = Math.max(staleWhileRevalidateNanos,
+                toNanos(newSettings.staleIfError()));
+        loadTimeoutNanos = toNanos(newSettings.loadTimeout());
+        long shortestTtl = Math.min(
+                expireAfterWriteNanos > 0 ? expireAfterWriteNanos : Long.MAX_VALUE,
+                expireAfterAccessNanos > 0 ? expireAfterAccessNanos : Long.MAX_VALUE);
+        sweepInterval = Math.max(MIN_SWEEP_INTERVAL, shortestTtl / 2);
+        nextSweepTime = 0;
+        settings = newSettings;
+    }
+
+    /**
+     * Ожидаемое число записей. При ограничении только по весу оно оценивается по среднему
+     * весу уже добавленных записей, а пока их нет, берется минимальный размер: политика
+     * растет вместе с кэшем в maintenance().
+     */
+    private long expectedSize(CacheSettings current) {
+        if (current.maximumSize() > 0) {
+            return scaled(current.maximumSize());
+        }
+        int entries = policy == null ? 0 : policy.size();
+        if (current.maximumWeight() > 0 && entries > 0 && weightedSize > 0) {
+            return Math.max(MIN_POLICY_SIZE,
+                    (long) ((double) scaled(current.maximumWeight()) * entries / weightedSize));
+        }
+        return Math.max(MIN_POLICY_SIZE, data.size());
+    }
+
+    private void resizePolicy(long expectedSize) {
+        policy.setMaximum(expectedSize);
+        policyMaximum = expectedSize;
+    }
+
+    // Средний вес меняется постепенно; перестраиваем политику, только когда оценка ушла
+    // вдвое, иначе каждое обслуживание сбрасывало бы частоты при росте FrequencySketch
+    private void resizePolicyIfDrifted() {
+        long expectedSize = expectedSize(settings);
+        if (expectedSize > 2 * policyMaximum || expectedSize < policyMaximum / 2) {
+            resizePolicy(expectedSize);
+        }
+    }
+
+    private V getQuietly(K key) {
+        CacheNode<K, V> node = data.get(key);
+        if (node == null || (isTimed() && isExpired(node, ticker.getAsLong()))) {
+            return null;
+        }
+        return node.value;
+    }
+
+    private boolean isTimed() {
+        return expireAfterWriteNanos > 0 || expireAfterAccessNanos > 0
+                || refreshAfterWriteNanos > 0;
+    }
+
+    private boolean isExpired(CacheNode<K, V> node, long now) {
+        if (node.pinned) {
+            return false;
+        }
+        return (expireAfterWriteNanos > 0 && now - node.writeTime >= expireAfterWriteNanos)
+                || (expireAfterAccessNanos > 0 && now - node.accessTime >= expireAfterAccessNanos);
+    }
+
+    // На сколько запись пережила свой срок; отрицательное значение у неистекшей записи
+    private long overdue(CacheNode<K, V> node, long now) {
+        long overdue = Long.MIN_VALUE;
+        if (expireAfterWriteNanos > 0) {
+            overdue = now - node.writeTime - expireAfterWriteNanos;
+        }
+        if (expireAfterAccessNanos > 0) {
+            overdue = Math.max(overdue, now - node.accessTime - expireAfterAccessNanos);
+        }
+        return overdue;
+    }
+
+    private CacheNode<K, V> staleNode(K key) {
+        if (staleRetentionNanos == 0) {
+            return null;
+        }
+        CacheNode<K, V> node = data.get(key);
+        if (node == null) {
+            return null;
+        }
+        long now = ticker.getAsLong();
+        return isExpired(node, now) && overdue(node, now) < staleRetentionNanos ? node : null;
+    }
+
+    private V serveStale(CacheNode<K, V> node) {
+        V value = node.value;
+        StaleReads.mark();
+        afterRead(node);
+        return value;
+    }
+
+    private V awaitOrStale(CompletableFuture<V> future, CacheNode<K, V> stale) {
+        try {
+            return loadTimeoutNanos > 0
+                    ? future.get(loadTimeoutNanos, TimeUnit.NANOSECONDS)
+                    : future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.debug("Кэш {} отдает истекшее значение. Ключ: {}", name, stale.key);
+        }
+        return serveStale(stale);
+    }
+
+    private void removeIfExpired(K key) {
+        CacheNode<K, V> node = data.get(key);
+        if (node != null && isExpired(node, ticker.getAsLong())) {
+            expire(node);
+        }
+    }
+
+    private void expire(CacheNode<K, V> node) {
+        if (data.remove(node.key, node)) {
+            node.retire();
+            statsCounter.recordEviction();
+            afterWrite(() -> onRemove(node));
+        }
+    }
+
+    private void refreshIfNeeded(CacheNode<K, V> node, long now) {
+        Function<? super K, ? extends V> currentLoader = loader;
+        if (currentLoader == null || now - node.writeTime < refreshAfterWriteNanos) {
+            return;
+        }
+        refresh(node, currentLoader);
+    }
+
+    private void refresh(CacheNode<K, V> node, Function<? super K, ? extends V> currentLoader) {
+        K key = node.key;
+        long writeTime = node.writeTime;
+        CompletableFuture<V> refresh = new CompletableFuture<>();
+        if (refreshes.putIfAbsent(key, refresh) != null) {
+            return;
+        }
+
+        executor.execute(() -> {
+            long startTime = ticker.getAsLong();
+            try {
+                V value = currentLoader.apply(key);
+                statsCounter.recordLoadSuccess(ticker.getAsLong() - startTime);
+                replaceIfUnchanged(node, writeTime, value);
+                refresh.complete(value);
+            } catch (RuntimeException e) {
+                statsCounter.recordLoadFailure(ticker.getAsLong() - startTime);
+                logger.warn("Не удалось обновить объект в кэше {}. Ключ: {}", name, key, e);
+                refresh.completeExceptionally(e);
+            } finally {
+                refreshes.remove(key, refresh);
+            }
+        });
+    }
+
+    // Запись, перезаписанная или удаленная во время загрузки, не трогается
+    private void replaceIfUnchanged(CacheNode<K, V> node, long writeTime, V value) {
+        long now = ticker.getAsLong();
+        boolean[] changed = new boolean[1];
+        data.computeIfPresent(node.key, (k, current) -> {
+            if (current != node || current.writeTime != writeTime) {
+                return current;
+            }
+            changed[0] = true;
+            if (value == null) {
+                return null;
+            }
+            current.value = value;
+            current.writeTime = now;
+            current.accessTime = now;
+            return current;
+        });
+
+        if (!changed[0]) {
+            return;
+        }
+        if (value == null) {
+            node.retire();
+            afterWrite(() -> onRemove(node));
+        } else {
+            int weight = weigher.applyAsInt(value);
+            afterWrite(() -> onUpdate(node, weight));
+        }
+    }
+
+    private void afterRead(CacheNode<K, V> node) {
+        boolean bufferFull = readBuffer.offer(node);
+        if (bufferFull || !writeBuffer.isEmpty()) {
+            tryMaintenance();
+        }
+    }
+
+    private void afterWrite(Runnable task) {
+        writeBuffer.add(task);
+        tryMaintenance();
+    }
+
+    private void tryMaintenance() {
+        // Поток, снявший блокировку, перепроверяет очередь записей, поэтому задачи,
+        // добавленные во время чужого обслуживания, не теряются
+        do {
+            if (!evictionLock.tryLock()) {
+                return;
+            }
+            try {
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+        } while (!writeBuffer.isEmpty());
+    }
+
+    private void maintenance() {
+        readBuffer.drainTo(this::onAccess);
+        drainWriteBuffer();
+        expireEntries();
+        resizePolicyIfDrifted();
+        evictEntries();
+    }
+
+    private void drainWriteBuffer() {
+        Runnable task;
+        while ((task = writeBuffer.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private void onAdd(CacheNode<K, V> node, int weight) {
+        if (!node.isRetired() && !node.inPolicy && !node.pinned) {
+            node.inPolicy = true;
+            node.policyWeight = weight;
+            weightedSize += weight;
+            policy.onAdd(node);
+        }
+    }
+
+    private void onUpdate(CacheNode<K, V> node, int weight) {
+        if (node.inPolicy) {
+            weightedSize += weight - node.policyWeight;
+            node.policyWeight = weight;
+            policy.onAccess(node);
+        }
+    }
+
+    private void onAccess(CacheNode<K, V> node) {
+        if (node.inPolicy && !node.isRetired()) {
+            policy.onAccess(node);
+        }
+    }
+
+    private void onPin(CacheNode<K, V> node) {
+        if (node.pinned) {
+            onRemove(node);
+        }
+    }
+
+    private void onRemove(CacheNode<K, V> node) {
+        if (node.inPolicy) {
+            policy.onRemove(node);
+            unaccount(node);
+        }
+    }
+
+    private void unaccount(CacheNode<K, V> node) {
+        node.inPolicy = false;
+        weightedSize -= node.policyWeight;
+    }
+
+    private void expireEntries() {
+        if (expireAfterWriteNanos == 0 && expireAfterAccessNanos == 0) {
+            return;
+        }
+        long now = ticker.getAsLong();
+        if (now - nextSweepTime < 0) {
+            return;
+        }
+        nextSweepTime = now + sweepInterval;
+        for (CacheNode<K, V> node : data.values()) {
+            if (isExpired(node, now) && overdue(node, now) >= staleRetentionNanos
+                    && data.remove(node.key, node)) {
+                node.retire();
+                statsCounter.recordEviction();
+                onRemove(node);
+            }
+        }
+    }
+
+    private void evictEntries() {
+        while (exceedsMaximum()) {
+            CacheNode<K, V> victim = policy.selectVictim();
+            if (victim == null) {
+                return;
+            }
+            unaccount(victim);
+            if (data.remove(victim.key, victim)) {
+                victim.retire();
+                statsCounter.recordEviction();
+                logger.trace("Удаление устаревшего элемента из кэша {}. Ключ: {}", name, victim.key);
+            }
+        }
+    }
+
+    private boolean exceedsMaximum() {
+        CacheSettings current = settings;
+        return (current.maximumSize() > 0 && policy.size() > scaled(current.maximumSize()))
+                || (current.maximumWeight() > 0
+                        && weightedSize > scaled(current.maximumWeight()));
+    }
+
+    private long scaled(long maximum) {
+        return Math.max(1, (long) (maximum * capacityScale));
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private static long toNanos(Duration duration) {
+        return duration == null ? 0 : duration.toNanos();
+    }
+
+    @FunctionalInterface
+    public interface EntryVisitor<K, V> {
+        void visit(K key, V value, Duration writeAge);
+    }
+
+    private static final class Load<V> {
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        volatile boolean invalidated;
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.library.util;
+
+public enum EvictionMode {
+    LRU,
+    TINY_LFU
+}
@@ -0,0 +1,30 @@
+package com.example.library.util;
+
+/**
+ * Политика вытеснения. Все методы вызываются только под evictionLock кэша.
+ */
+interface EvictionPolicy<K, V> {
+
+    void onAdd(CacheNode<K, V> node);
+
+    void onAccess(CacheNode<K, V> node);
+
+    void onRemove(CacheNode<K, V> node);
+
+    /**
+     * Отвязывает и возвращает запись, которую следует удалить из кэша, чтобы уложиться в емкость.
+     */
+    CacheNode<K, V> selectVictim();
+
+    /**
+     * Отвязывает и возвращает произвольную запись или null, если политика пуста.
+     */
+    CacheNode<K, V> poll();
+
+    int size();
+
+    /**
+     * Сообщает политике ожидаемое число записей после изменения настроек кэша.
+     */
+    void setMaximum(long maximumSize);
+}
@@ -0,0 +1,91 @@
+package com.example.library.util;
+
+/**
+ * Count-min sketch с 4-битными счетчиками для оценки частоты обращений к ключу.
+ * Счетчики периодически делятся пополам, чтобы старая популярность постепенно забывалась.
+ * Не потокобезопасен, используется под evictionLock кэша.
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    private long[] table;
+    private int tableMask;
+    private int sampleSize;
+    private int additions;
+
+    FrequencySketch(int capacity) {
+        ensureCapacity(capacity);
+    }
+
+    /**
+     * Увеличивает таблицу под новую емкость кэша; накопленная статистика при этом сбрасывается.
+     */
+    void ensureCapacity(int capacity) {
+        int size = ceilingPowerOfTwo(Math.max(capacity, 16));
+        if (table != null && table.length >= size) {
+            return;
+        }
+        table = new long[size];
+        tableMask = size - 1;
+        sampleSize = (int) Math.min(10L * size, Integer.MAX_VALUE);
+        additions = 0;
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long count = (table[indexOf(hash, i)] >>> offsetOf(hash, i)) & 0xfL;
+            frequency = Math.min(frequency, (int) count);
+        }
+        return frequency;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int index = indexOf(hash, i);
+            int offset = offsetOf(hash, i);
+            if (((table[index] >>> offset) & 0xfL) < MAX_COUNT) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions >>>= 1;
+    }
+
+    private int indexOf(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return (int) h & tableMask;
+    }
+
+    // Каждая строка использует свою четверку счетчиков внутри 64-битного слова
+    private static int offsetOf(int hash, int row) {
+        return ((row << 2) + ((hash >>> (row << 3)) & 3)) << 2;
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+
+    private static int ceilingPowerOfTwo(int value) {
+        return Integer.highestOneBit(Math.min(value, 1 << 30) * 2 - 1);
+    }
+}
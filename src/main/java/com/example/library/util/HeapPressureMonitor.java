@@ -0,0 +1,89 @@
+package com.example.library.util;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Сообщает, сколько кучи занято сразу после каждой сборки мусора, по уведомлениям
+ * GarbageCollectorMXBean. Учитываются только пулы кучи, без metaspace и кэша кода.
+ */
+public class HeapPressureMonitor implements AutoCloseable {
+
+    private final Logger logger = LoggerFactory.getLogger(HeapPressureMonitor.class);
+    private final HeapUsageListener listener;
+    private final Set<String> heapPools;
+    private final List<NotificationEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final NotificationListener notificationListener = this::onNotification;
+
+    public HeapPressureMonitor(HeapUsageListener listener) {
+        this.listener = listener;
+        this.heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .map(MemoryPoolMXBean::getName)
+                .collect(Collectors.toSet());
+    }
+
+    public void start() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(notificationListener, null, null);
+                emitters.add(emitter);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(notificationListener);
+            } catch (ListenerNotFoundException e) {
+                logger.debug("Слушатель сборок мусора уже удален");
+            }
+        }
+        emitters.clear();
+    }
+
+    private void onNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION
+                .equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        long used = 0;
+        for (Map.Entry<String, MemoryUsage> pool
+                : info.getGcInfo().getMemoryUsageAfterGc().entrySet()) {
+            if (heapPools.contains(pool.getKey())) {
+                used += pool.getValue().getUsed();
+            }
+        }
+        long max = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax();
+        try {
+            listener.onHeapUsage(used, max);
+        } catch (RuntimeException e) {
+            logger.warn("Ошибка обработки заполненности кучи", e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface HeapUsageListener {
+        void onHeapUsage(long usedBytes, long maxBytes);
+    }
+}
@@ -0,0 +1,344 @@
+package com.example.library.util;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * Кэш с ключами int на открытой адресации без упаковки ключей и без объекта-узла на
+ * запись: ключи, значения, время записи и бит обращения лежат в параллельных массивах.
+ * Таблица разбита на сегменты со своей блокировкой, чтение идет оптимистично без
+ * блокировки. Вытеснение - алгоритм CLOCK (second chance), приближение LRU.
+ * Размер таблицы фиксирован и рассчитан на maximumSize записей.
+ */
+public class IntKeyCache<V> {
+
+    private static final Object TOMBSTONE = new Object();
+    private static final int MAX_SEGMENTS = 64;
+    private static final int MIN_SEGMENT_CAPACITY = 8;
+    private static final int MAX_SEGMENT_CAPACITY = 1 << 28;
+
+    private final String name;
+    private final long maximumSize;
+    private final long expireAfterWriteNanos;
+    private final Segment<V>[] segments;
+    private final int segmentShift;
+    private final StatsCounter statsCounter = new StatsCounter();
+    LongSupplier ticker = System::nanoTime;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public IntKeyCache(String name, long maximumSize, Duration expireAfterWrite) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize должно быть положительным");
+        }
+        this.name = Objects.requireNonNull(name);
+        this.maximumSize = maximumSize;
+        this.expireAfterWriteNanos = expireAfterWrite == null ? 0 : expireAfterWrite.toNanos();
+
+        int segmentCount = Integer.highestOneBit((int) Math.max(1, Math.min(MAX_SEGMENTS,
+                Math.min(maximumSize / MIN_SEGMENT_CAPACITY,
+                        4L * Runtime.getRuntime().availableProcessors()))));
+        int segmentCapacity = (int) Math.min(MAX_SEGMENT_CAPACITY,
+                (maximumSize + segmentCount - 1) / segmentCount);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(segmentCapacity, expireAfterWriteNanos, statsCounter);
+        }
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+    }
+
+    /**
+     * Создает кэш по {@link CacheSettings}; поддерживаются только maximumSize и
+     * expireAfterWrite.
+     */
+    public static <V> IntKeyCache<V> of(String name, CacheSettings settings) {
+        if (settings.maximumSize() == 0 || settings.maximumWeight() > 0
+                || settings.expireAfterAccess() != null || settings.refreshAfterWrite() != null
+                || settings.staleWhileRevalidate() != null || settings.staleIfError() != null) {
+            throw new IllegalArgumentException(
+                    "Кэш " + name + " поддерживает только maximumSize и expireAfterWrite");
+        }
+        return new IntKeyCache<>(name, settings.maximumSize(), settings.expireAfterWrite());
+    }
+
+    public V get(int key) {
+        int hash = spread(key);
+        V value = segmentFor(hash).get(key, hash, ticker.getAsLong());
+        if (value == null) {
+            statsCounter.recordMiss();
+        } else {
+            statsCounter.recordHit();
+        }
+        return value;
+    }
+
+    public void put(int key, V value) {
+        Objects.requireNonNull(value);
+        int hash = spread(key);
+        segmentFor(hash).put(key, hash, value, ticker.getAsLong());
+    }
+
+    /**
+     * Возвращает значение или загружает его функцией mappingFunction. Загрузка выполняется
+     * вне блокировки сегмента, поэтому параллельные промахи по одному ключу не объединяются.
+     */
+    public V computeIfAbsent(int key, IntFunction<? extends V> mappingFunction) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        long startTime = ticker.getAsLong();
+        try {
+            value = mappingFunction.apply(key);
+            statsCounter.recordLoadSuccess(ticker.getAsLong() - startTime);
+        } catch (RuntimeException e) {
+            statsCounter.recordLoadFailure(ticker.getAsLong() - startTime);
+            throw e;
+        }
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    public void evict(int key) {
+        int hash = spread(key);
+        segmentFor(hash).remove(key, hash);
+    }
+
+    public void clear() {
+        for (Segment<V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    public CacheStats stats() {
+        int size = size();
+        return statsCounter.snapshot(size, size);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    private Segment<V> segmentFor(int hash) {
+        return segmentShift == 32 ? segments[0] : segments[hash >>> segmentShift];
+    }
+
+    // Финализатор MurmurHash3: последовательные id равномерно распределяются по сегментам
+    private static int spread(int key) {
+        int h = key;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static final class Segment<V> {
+        private final StampedLock lock = new StampedLock();
+        private final int capacity;
+        private final long expireAfterWriteNanos;
+        private final StatsCounter statsCounter;
+        private final int mask;
+        private final int[] keys;
+        private final Object[] values;
+        private final long[] writeTimes;
+        private final byte[] referenced;
+        private volatile int size;
+        private int tombstones;
+        private int clockHand;
+
+        Segment(int capacity, long expireAfterWriteNanos, StatsCounter statsCounter) {
+            this.capacity = capacity;
+            this.expireAfterWriteNanos = expireAfterWriteNanos;
+            this.statsCounter = statsCounter;
+            // Таблица заполнена не более чем наполовину живыми записями, остаток до 3/4
+            // занимают надгробия, поэтому перестроение нужно не чаще раза на capacity / 2 удалений
+            int tableSize = Integer.highestOneBit(Math.max(4, capacity * 2) * 2 - 1);
+            this.mask = tableSize - 1;
+            this.keys = new int[tableSize];
+            this.values = new Object[tableSize];
+            this.writeTimes = expireAfterWriteNanos > 0 ? new long[tableSize] : null;
+            this.referenced = new byte[tableSize];
+        }
+
+        V get(int key, int hash, long now) {
+            long stamp = lock.tryOptimisticRead();
+            int index = find(key, hash);
+            Object value = index < 0 ? null : values[index];
+            long writeTime = index >= 0 && writeTimes != null ? writeTimes[index] : 0;
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    index = find(key, hash);
+                    value = index < 0 ? null : values[index];
+                    writeTime = index >= 0 && writeTimes != null ? writeTimes[index] : 0;
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            if (value == null || value == TOMBSTONE) {
+                return null;
+            }
+            if (writeTimes != null && now - writeTime >= expireAfterWriteNanos) {
+                return null;
+            }
+            // Гонка при установке бита безопасна: в худшем случае запись получит лишний шанс
+            referenced[index] = 1;
+            @SuppressWarnings("unchecked")
+            V result = (V) value;
+            return result;
+        }
+
+        void put(int key, int hash, V value, long now) {
+            long stamp = lock.writeLock();
+            try {
+                int index = find(key, hash);
+                if (index >= 0) {
+                    values[index] = value;
+                    setWriteTime(index, now);
+                    referenced[index] = 1;
+                    return;
+                }
+                if (size >= capacity) {
+                    evictOne(now);
+                }
+                if (size + tombstones + 1 > (mask + 1) * 3 / 4) {
+                    rehash();
+                }
+                index = insertionSlot(key, hash);
+                if (values[index] == TOMBSTONE) {
+                    tombstones--;
+                }
+                keys[index] = key;
+                values[index] = value;
+                setWriteTime(index, now);
+                referenced[index] = 0;
+                size++;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void remove(int key, int hash) {
+            long stamp = lock.writeLock();
+            try {
+                int index = find(key, hash);
+                if (index >= 0) {
+                    removeAt(index);
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void clear() {
+            long stamp = lock.writeLock();
+            try {
+                Arrays.fill(values, null);
+                Arrays.fill(referenced, (byte) 0);
+                size = 0;
+                tombstones = 0;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private int find(int key, int hash) {
+            int index = hash & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                Object value = values[index];
+                if (value == null) {
+                    return -1;
+                }
+                if (value != TOMBSTONE && keys[index] == key) {
+                    return index;
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+
+        private int insertionSlot(int key, int hash) {
+            int index = hash & mask;
+            while (values[index] != null && values[index] != TOMBSTONE) {
+                index = (index + 1) & mask;
+            }
+            return index;
+        }
+
+        // CLOCK: запись с установленным битом обращения получает второй шанс
+        private void evictOne(long now) {
+            while (true) {
+                int index = clockHand;
+                clockHand = (clockHand + 1) & mask;
+                Object value = values[index];
+                if (value == null || value == TOMBSTONE) {
+                    continue;
+                }
+                boolean expired = writeTimes != null
+                        && now - writeTimes[index] >= expireAfterWriteNanos;
+                if (referenced[index] != 0 && !expired) {
+                    referenced[index] = 0;
+                    continue;
+                }
+                removeAt(index);
+                statsCounter.recordEviction();
+                return;
+            }
+        }
+
+        private void removeAt(int index) {
+            values[index] = TOMBSTONE;
+            referenced[index] = 0;
+            size--;
+            tombstones++;
+        }
+
+        // Перестраивает таблицу того же размера, избавляясь от надгробий
+        private void rehash() {
+            int[] oldKeys = keys.clone();
+            Object[] oldValues = values.clone();
+            long[] oldWriteTimes = writeTimes == null ? null : writeTimes.clone();
+            byte[] oldReferenced = referenced.clone();
+            Arrays.fill(values, null);
+            tombstones = 0;
+            for (int i = 0; i < oldValues.length; i++) {
+                Object value = oldValues[i];
+                if (value == null || value == TOMBSTONE) {
+                    continue;
+                }
+                int index = insertionSlot(oldKeys[i], spread(oldKeys[i]));
+                keys[index] = oldKeys[i];
+                values[index] = value;
+                if (oldWriteTimes != null) {
+                    writeTimes[index] = oldWriteTimes[i];
+                }
+                referenced[index] = oldReferenced[i];
+            }
+        }
+
+        private void setWriteTime(int index, long now) {
+            if (writeTimes != null) {
+                writeTimes[index] = now;
+            }
+        }
+    }
+}
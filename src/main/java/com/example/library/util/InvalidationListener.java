@@ -0,0 +1,7 @@
+package com.example.library.util;
+
+@FunctionalInterface
+public interface InvalidationListener {
+
+    void onInvalidate(String cacheName, Object key);
+}
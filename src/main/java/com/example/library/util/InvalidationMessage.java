@@ -0,0 +1,9 @@
+package com.example.library.util;
+
+/**
+ * Сообщение об удалении записи из кэша. origin - идентификатор узла-отправителя,
+ * по нему узел отбрасывает собственные сообщения. Ключ - Integer или String, оба типа
+ * без потерь проходят через JSON.
+ */
+public record InvalidationMessage(String origin, String cache, Object key) {
+}
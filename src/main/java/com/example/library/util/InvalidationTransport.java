@@ -0,0 +1,14 @@
+package com.example.library.util;
+
+import java.util.function.Consumer;
+
+/**
+ * Канал доставки сообщений об инвалидации между узлами. Реализация может доставлять
+ * сообщение и самому отправителю.
+ */
+public interface InvalidationTransport {
+
+    void publish(InvalidationMessage message);
+
+    void subscribe(Consumer<InvalidationMessage> subscriber);
+}
@@ -0,0 +1,24 @@
+package com.example.library.util;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Транспорт внутри одного процесса: сообщение синхронно получают все подписчики.
+ * Несколько шин, подписанных на один экземпляр, ведут себя как узлы одного кластера.
+ */
+public class LoopbackInvalidationTransport implements InvalidationTransport {
+
+    private final List<Consumer<InvalidationMessage>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(InvalidationMessage message) {
+        subscribers.forEach(subscriber -> subscriber.accept(message));
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationMessage> subscriber) {
+        subscribers.add(subscriber);
+    }
+}
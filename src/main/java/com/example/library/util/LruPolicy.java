@@ -0,0 +1,47 @@
+package com.example.library.util;
+
+final class LruPolicy<K, V> implements EvictionPolicy<K, V> {
+
+    private final AccessOrderDeque<K, V> accessOrder = new AccessOrderDeque<>();
+
+    @Override
+    public void onAdd(CacheNode<K, V> node) {
+        if (!accessOrder.contains(node)) {
+            accessOrder.linkLast(node);
+        }
+    }
+
+    @Override
+    public void onAccess(CacheNode<K, V> node) {
+        accessOrder.moveToBack(node);
+    }
+
+    @Override
+    public void onRemove(CacheNode<K, V> node) {
+        accessOrder.unlink(node);
+    }
+
+    @Override
+    public CacheNode<K, V> selectVictim() {
+        return poll();
+    }
+
+    @Override
+    public CacheNode<K, V> poll() {
+        CacheNode<K, V> node = accessOrder.peekFirst();
+        if (node != null) {
+            accessOrder.unlink(node);
+        }
+        return node;
+    }
+
+    @Override
+    public int size() {
+        return accessOrder.size();
+    }
+
+    @Override
+    public void setMaximum(long maximumSize) {
+        // LRU не зависит от емкости
+    }
+}
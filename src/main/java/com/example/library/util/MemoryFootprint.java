@@ -0,0 +1,23 @@
+package com.example.library.util;
+
+/**
+ * Приблизительные размеры объектов в куче для оценки памяти, занятой кэшами. Считается
+ * 64-битная JVM со сжатыми ссылками; строка учитывается в UTF-16, так как кириллица
+ * не помещается в компактное представление Latin-1.
+ */
+public final class MemoryFootprint {
+
+    public static final long OBJECT_HEADER = 16;
+    public static final long REFERENCE = 4;
+
+    private MemoryFootprint() {
+    }
+
+    public static long ofString(String value) {
+        return value == null ? 0 : OBJECT_HEADER + 24 + 2L * value.length();
+    }
+
+    public static long ofArray(int length, long elementBytes) {
+        return OBJECT_HEADER + length * elementBytes;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.library.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Транспорт через LISTEN/NOTIFY PostgreSQL. Для прослушивания канала постоянно
+ * занимает одно соединение из пула; при его потере переподключается. Сообщения
+ * отправляет отдельный поток: накопившиеся за время отправки уходят следующей пачкой
+ * одним запросом, поэтому массовое изменение не стоит запроса на каждую запись.
+ */
+public class PostgresInvalidationTransport implements InvalidationTransport, AutoCloseable {
+
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final int POLL_TIMEOUT_MILLIS = 1000;
+    private static final long RECONNECT_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(5);
+    private static final int MAX_BATCH = 500;
+    private static final String NOTIFY_BATCH =
+            "SELECT pg_notify(?, payload) FROM unnest(?) AS payload";
+
+    private final Logger logger = LoggerFactory.getLogger(PostgresInvalidationTransport.class);
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final String channel;
+    private final List<Consumer<InvalidationMessage>> subscribers = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<String> outbox = new LinkedBlockingQueue<>();
+    private final Thread listenerThread;
+    private final Thread publisherThread;
+    private volatile boolean running = true;
+
+    public PostgresInvalidationTransport(DataSource dataSource, ObjectMapper objectMapper,
+                                         String channel) {
+        if (!CHANNEL_NAME.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Недопустимое имя канала: " + channel);
+        }
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+        this.channel = channel;
+        this.listenerThread = new Thread(this::listen, "cache-invalidation-listener");
+        this.listenerThread.setDaemon(true);
+        this.publisherThread = new Thread(this::publishQueued, "cache-invalidation-publisher");
+        this.publisherThread.setDaemon(true);
+    }
+
+    public void start() {
+        listenerThread.start();
+        publisherThread.start();
+    }
+
+    @Override
+    public void publish(InvalidationMessage message) {
+        try {
+            outbox.add(objectMapper.writeValueAsString(message));
+        } catch (JsonProcessingException e) {
+            logger.warn("Не удалось отправить сообщение об инвалидации {}", message, e);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationMessage> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        listenerThread.interrupt();
+        publisherThread.interrupt();
+    }
+
+    private void publishQueued() {
+        List<String> batch = new ArrayList<>(MAX_BATCH);
+        while (running) {
+            try {
+                batch.add(outbox.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            outbox.drainTo(batch, MAX_BATCH - 1);
+            send(batch);
+            batch.clear();
+        }
+        // Отправляем то, что успело накопиться до остановки; флаг прерывания сбрасывается,
+        // чтобы пул выдал соединение
+        Thread.interrupted();
+        while (outbox.drainTo(batch, MAX_BATCH) > 0) {
+            send(batch);
+            batch.clear();
+        }
+    }
+
+    private void send(List<String> payloads) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(NOTIFY_BATCH)) {
+            statement.setString(1, channel);
+            statement.setArray(2, connection.createArrayOf("text", payloads.toArray()));
+            statement.execute();
+        } catch (SQLException e) {
+            logger.warn("Не удалось отправить {} сообщений об инвалидации", payloads.size(), e);
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications =
+                            pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            deliver(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Потеряно соединение канала инвалидации {}, переподключение", channel, e);
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void deliver(String payload) {
+        try {
+            InvalidationMessage message = objectMapper.readValue(payload, InvalidationMessage.class);
+            subscribers.forEach(subscriber -> subscriber.accept(message));
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.warn("Не удалось обработать сообщение об инвалидации: {}", payload, e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.library.util;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Считает SQL-запросы, которые Hibernate выполнил в текущем потоке. Подключается свойством
+ * hibernate.session_factory.statement_inspector; веб-слой снимает счетчик после каждого
+ * запроса, чтобы видеть, сколько обращений к базе стоит каждый эндпоинт.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    /** Возвращает число запросов с прошлого вызова и обнуляет счетчик. */
+    public static int reset() {
+        int[] count = COUNT.get();
+        int statements = count[0];
+        count[0] = 0;
+        return statements;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.library.util;
+
+/**
+ * Отметка о том, что текущий поток получил из кэша истекшее значение. По ней веб-слой
+ * помечает ответ как устаревший и не кэширует его.
+ */
+public final class StaleReads {
+
+    private static final ThreadLocal<Boolean> STALE = new ThreadLocal<>();
+
+    private StaleReads() {
+    }
+
+    static void mark() {
+        STALE.set(Boolean.TRUE);
+    }
+
+    /** Возвращает, были ли устаревшие чтения с прошлого вызова, и сбрасывает отметку. */
+    public static boolean reset() {
+        boolean stale = STALE.get() != null;
+        STALE.remove();
+        return stale;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.library.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Набор кольцевых буферов с потерями для отложенной записи обращений к кэшу.
+ * Потоки пишут в свою полосу без блокировок, вычитывание выполняется под evictionLock.
+ */
+final class StripedReadBuffer<E> {
+
+    private static final int BUFFER_SIZE = 16;
+    private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+    private static final int MAX_STRIPES = 64;
+
+    private final Stripe<E>[] stripes;
+    private final int stripeMask;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    StripedReadBuffer() {
+        int count = Integer.highestOneBit(
+                Math.min(MAX_STRIPES, 4 * Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe<>();
+        }
+        stripeMask = count - 1;
+    }
+
+    /**
+     * Возвращает true, если полоса заполнена и буфер пора вычитать.
+     */
+    boolean offer(E element) {
+        return stripes[stripeIndex()].offer(element);
+    }
+
+    void drainTo(Consumer<E> consumer) {
+        for (Stripe<E> stripe : stripes) {
+            stripe.drainTo(consumer);
+        }
+    }
+
+    private int stripeIndex() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & stripeMask;
+    }
+
+    private static final class Stripe<E> {
+
+        private final AtomicLong writeCounter = new AtomicLong();
+        private final AtomicReferenceArray<E> buffer = new AtomicReferenceArray<>(BUFFER_SIZE);
+        private volatile long readCounter;
+
+        boolean offer(E element) {
+            long head = readCounter;
+            long tail = writeCounter.get();
+            long used = tail - head;
+            if (used >= BUFFER_SIZE) {
+                return true;
+            }
+            if (writeCounter.compareAndSet(tail, tail + 1)) {
+                buffer.lazySet((int) (tail & BUFFER_MASK), element);
+                return used + 1 >= BUFFER_SIZE;
+            }
+            // Конкурентная запись в ту же полосу: обращение просто теряется
+            return false;
+        }
+
+        void drainTo(Consumer<E> consumer) {
+            long head = readCounter;
+            long tail = writeCounter.get();
+            for (; head != tail; head++) {
+                int index = (int) (head & BUFFER_MASK);
+                E element = buffer.get(index);
+                if (element == null) {
+                    break;
+                }
+                buffer.lazySet(index, null);
+                consumer.accept(element);
+            }
+            readCounter = head;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.library.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Версии тегов для инвалидации по тегам без индекса "тег - ключи". Запись запоминает
+ * версии своих тегов до вычисления значения и считается устаревшей, если версия хотя бы
+ * одного тега с тех пор изменилась. Теги хешируются в фиксированное число полос, поэтому
+ * память не растет с числом тегов; совпадение полос дает лишь лишний промах.
+ */
+public class TagVersions {
+
+    private final AtomicLongArray versions;
+    private final int mask;
+
+    public TagVersions(int stripes) {
+        if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("stripes должно быть положительной степенью двойки");
+        }
+        this.versions = new AtomicLongArray(stripes);
+        this.mask = stripes - 1;
+    }
+
+    public long[] snapshot(String[] tags) {
+        long[] snapshot = new long[tags.length];
+        for (int i = 0; i < tags.length; i++) {
+            snapshot[i] = versions.get(stripe(tags[i]));
+        }
+        return snapshot;
+    }
+
+    public boolean isCurrent(String[] tags, long[] snapshot) {
+        for (int i = 0; i < tags.length; i++) {
+            if (versions.get(stripe(tags[i])) != snapshot[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void invalidate(String tag) {
+        versions.incrementAndGet(stripe(tag));
+    }
+
+    private int stripe(String tag) {
+        int h = tag.hashCode() * 0x9e3779b9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
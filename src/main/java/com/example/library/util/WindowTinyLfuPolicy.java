@@ -0,0 +1,133 @@
+package com.example.library.util;
+
+/**
+ * W-TinyLFU: новые записи попадают в небольшое LRU-окно, а в основную область
+ * (probation + protected) допускаются, только если по оценке FrequencySketch обращаются
+ * к ним чаще, чем к кандидату на вытеснение. Разовые обращения (сканирование списка,
+ * массовая загрузка) не вытесняют рабочий набор.
+ */
+final class WindowTinyLfuPolicy<K, V> implements EvictionPolicy<K, V> {
+
+    private static final int WINDOW = 1;
+    private static final int PROBATION = 2;
+    private static final int PROTECTED = 3;
+
+    private static final double WINDOW_RATIO = 0.01;
+    private static final double PROTECTED_RATIO = 0.8;
+
+    private final AccessOrderDeque<K, V> window = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> probation = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> protectedQueue = new AccessOrderDeque<>();
+    private final FrequencySketch sketch;
+    private int windowMaximum;
+    private int protectedMaximum;
+
+    WindowTinyLfuPolicy(long maximumSize) {
+        sketch = new FrequencySketch((int) Math.min(maximumSize, Integer.MAX_VALUE));
+        setMaximum(maximumSize);
+    }
+
+    @Override
+    public void onAdd(CacheNode<K, V> node) {
+        if (node.queue != 0) {
+            return;
+        }
+        sketch.increment(node.key);
+        node.queue = WINDOW;
+        window.linkLast(node);
+
+        // Вышедшие из окна записи становятся кандидатами в испытательной очереди
+        while (window.size() > windowMaximum) {
+            CacheNode<K, V> candidate = window.peekFirst();
+            window.unlink(candidate);
+            candidate.queue = PROBATION;
+            probation.linkLast(candidate);
+        }
+    }
+
+    @Override
+    public void onAccess(CacheNode<K, V> node) {
+        sketch.increment(node.key);
+        switch (node.queue) {
+            case WINDOW -> window.moveToBack(node);
+            case PROBATION -> promote(node);
+            case PROTECTED -> protectedQueue.moveToBack(node);
+            default -> { }
+        }
+    }
+
+    @Override
+    public void onRemove(CacheNode<K, V> node) {
+        queueOf(node).unlink(node);
+        node.queue = 0;
+    }
+
+    @Override
+    public CacheNode<K, V> selectVictim() {
+        CacheNode<K, V> victim = probation.peekFirst();
+        CacheNode<K, V> candidate = probation.size() > 1 ? probation.peekLast() : null;
+
+        CacheNode<K, V> evicted;
+        if (victim == null) {
+            evicted = protectedQueue.size() > 0 ? protectedQueue.peekFirst() : window.peekFirst();
+        } else if (candidate == null) {
+            evicted = victim;
+        } else {
+            // Кандидат допускается только если он популярнее жертвы
+            evicted = sketch.frequency(candidate.key) > sketch.frequency(victim.key)
+                    ? victim : candidate;
+        }
+        if (evicted != null) {
+            onRemove(evicted);
+        }
+        return evicted;
+    }
+
+    @Override
+    public CacheNode<K, V> poll() {
+        CacheNode<K, V> node = window.peekFirst();
+        if (node == null) {
+            node = probation.peekFirst();
+        }
+        if (node == null) {
+            node = protectedQueue.peekFirst();
+        }
+        if (node != null) {
+            onRemove(node);
+        }
+        return node;
+    }
+
+    @Override
+    public int size() {
+        return window.size() + probation.size() + protectedQueue.size();
+    }
+
+    @Override
+    public void setMaximum(long maximumSize) {
+        int capacity = (int) Math.min(maximumSize, Integer.MAX_VALUE);
+        sketch.ensureCapacity(capacity);
+        windowMaximum = Math.max(1, (int) (capacity * WINDOW_RATIO));
+        protectedMaximum = (int) ((capacity - windowMaximum) * PROTECTED_RATIO);
+    }
+
+    private void promote(CacheNode<K, V> node) {
+        probation.unlink(node);
+        node.queue = PROTECTED;
+        protectedQueue.linkLast(node);
+        while (protectedQueue.size() > protectedMaximum) {
+            CacheNode<K, V> demoted = protectedQueue.peekFirst();
+            protectedQueue.unlink(demoted);
+            demoted.queue = PROBATION;
+            probation.linkLast(demoted);
+        }
+    }
+
+    private AccessOrderDeque<K, V> queueOf(CacheNode<K, V> node) {
+        return switch (node.queue) {
+            case PROBATION -> probation;
+            case PROTECTED -> protectedQueue;
+            default -> window;
+        };
+    }
+}
@@ -0,0 +1,6 @@
+-- Сущности берут id из последовательностей пулами по 50 (allocationSize), шаг
+-- последовательностей должен совпадать, иначе проверка схемы при запуске не пройдет.
+-- Выполняется один раз перед запуском версии с GenerationType.SEQUENCE.
+ALTER SEQUENCE book_id_seq INCREMENT BY 50;
+ALTER SEQUENCE author_id_seq INCREMENT BY 50;
+ALTER SEQUENCE review_id_seq INCREMENT BY 50;
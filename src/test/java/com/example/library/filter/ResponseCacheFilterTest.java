@@ -0,0 +1,152 @@
+package com.example.library.filter;
+
+import com.example.library.config.CacheProperties;
+import com.example.library.repository.AuthorRepository;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.EntityVersion;
+import com.example.library.service.ResponseCacheService;
+import com.example.library.service.VisitCounterService;
+import com.example.library.util.CacheUtil;
+import com.example.library.util.LoopbackInvalidationTransport;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ResponseCacheFilterTest {
+
+    private static final String ORIGIN = "http://localhost:3000";
+    private static final String BODY = "{\"id\":1}";
+
+    private BookRepository bookRepository;
+    private ResponseCacheFilter responseCacheFilter;
+    private int handled;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository = mock(BookRepository.class);
+        when(bookRepository.findSnapshotVersions(List.of(1)))
+                .thenReturn(List.of(version(1, "b1")));
+        responseCacheFilter = node();
+    }
+
+    @Test
+    void crossOriginGet_RepeatedRead_CacheHitKeepsCorsHeaders() throws Exception {
+        MockHttpServletResponse first = get("/books/1");
+        MockHttpServletResponse second = get("/books/1");
+
+        assertEquals("MISS", first.getHeader("X-Cache"));
+        assertEquals("HIT", second.getHeader("X-Cache"));
+        assertEquals(1, handled);
+        assertEquals(BODY, second.getContentAsString());
+        for (MockHttpServletResponse response : List.of(first, second)) {
+            assertEquals(ORIGIN, response.getHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN));
+            assertEquals("true",
+                    response.getHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_CREDENTIALS));
+            assertTrue(response.getHeaders(HttpHeaders.VARY)
+                    .containsAll(List.of(HttpHeaders.ORIGIN, HttpHeaders.ACCEPT)));
+        }
+    }
+
+    @Test
+    void ifNoneMatchWildcard_NotCached_ReachesController() throws Exception {
+        MockHttpServletResponse response = get("/books/999999", "*");
+
+        assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+        assertEquals(1, handled);
+    }
+
+    @Test
+    void ifNoneMatchWildcard_CacheHit_ReturnsNotModified() throws Exception {
+        get("/books/1");
+
+        MockHttpServletResponse response = get("/books/1", "*");
+
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+        assertEquals(1, handled);
+    }
+
+    @Test
+    void ifNoneMatch_EtagFromAnotherNode_ReturnsNotModified() throws Exception {
+        String etag = get("/books/1").getHeader(HttpHeaders.ETAG);
+        responseCacheFilter = node();
+
+        MockHttpServletResponse response = get("/books/1", etag);
+
+        assertEquals("\"b1\"", etag);
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+        assertEquals(1, handled);
+    }
+
+    @Test
+    void ifNoneMatch_BookChanged_ReachesController() throws Exception {
+        String etag = get("/books/1").getHeader(HttpHeaders.ETAG);
+        when(bookRepository.findSnapshotVersions(List.of(1)))
+                .thenReturn(List.of(version(1, "b2")));
+        responseCacheFilter = node();
+
+        MockHttpServletResponse response = get("/books/1", etag);
+
+        assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+        assertEquals("\"b2\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals(2, handled);
+    }
+
+    // Отдельный экземпляр сервиса со своим кэшем - как другой узел или узел после перезапуска
+    private ResponseCacheFilter node() {
+        ResponseCacheService responseCacheService = new ResponseCacheService(new CacheUtil<>(10),
+                bookRepository, mock(AuthorRepository.class), new CacheUtil<>(10),
+                new CacheUtil<>(10), new CacheUtil<>(10), new LoopbackInvalidationTransport());
+        return new ResponseCacheFilter(responseCacheService,
+                new VisitCounterService(null, "unused.json"), new CacheProperties());
+    }
+
+    private static EntityVersion version(int id, String version) {
+        return new EntityVersion() {
+            @Override
+            public Integer getId() {
+                return id;
+            }
+
+            @Override
+            public String getVersion() {
+                return version;
+            }
+        };
+    }
+
+    private MockHttpServletResponse get(String uri) throws Exception {
+        return get(uri, null);
+    }
+
+    private MockHttpServletResponse get(String uri, String ifNoneMatch) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.addHeader(HttpHeaders.ORIGIN, ORIGIN);
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HttpServlet controller = new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+                    throws IOException {
+                handled++;
+                resp.setContentType("application/json");
+                resp.getWriter().write(BODY);
+            }
+        };
+        new MockFilterChain(controller, new CorsHeaderFilter(), responseCacheFilter)
+                .doFilter(request, response);
+        return response;
+    }
+}
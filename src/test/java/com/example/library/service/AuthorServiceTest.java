@@ -2,7 +2,10 @@ package com.example.library.service;
 
 import com.example.library.exception.*;
 import com.example.library.model.Author;
+import com.example.library.model.AuthorSnapshot;
 import com.example.library.model.Book;
+import com.example.library.model.BookSnapshot;
+import com.example.library.model.ReviewSnapshot;
 import com.example.library.repository.AuthorRepository;
 import com.example.library.repository.BookRepository;
 import com.example.library.util.CacheUtil;
@@ -12,8 +15,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.util.*;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -28,7 +33,19 @@ class AuthorServiceTest {
     private BookRepository bookRepository;
 
     @Mock
-    private CacheUtil<Integer, Author> authorCacheId;
+    private CacheUtil<Integer, AuthorSnapshot> authorCacheId;
+
+    @Mock
+    private CacheUtil<Integer, BookSnapshot> bookCacheId;
+
+    @Mock
+    private CacheUtil<Integer, List<ReviewSnapshot>> reviewCacheId;
+
+    @Mock
+    private NegativeLookupService negativeLookupService;
+
+    @Mock
+    private SecondaryIndexService secondaryIndexService;
 
     @InjectMocks
     private AuthorService authorService;
@@ -60,7 +77,8 @@ class AuthorServiceTest {
 
         assertNotNull(result);
         assertEquals("John", result.getName());
-        verify(authorCacheId).put(1, author);
+        verify(authorCacheId).put(eq(1), any(AuthorSnapshot.class));
+        verify(bookCacheId).invalidate(1);
     }
 
     @Test
@@ -116,7 +134,7 @@ class AuthorServiceTest {
 
         assertNotNull(result);
         assertEquals(1, result.size());
-        verify(authorCacheId).put(1, author);
+        verify(authorCacheId).put(eq(1), any(AuthorSnapshot.class));
     }
 
     @Test
@@ -126,20 +144,24 @@ class AuthorServiceTest {
 
     @Test
     void findById_ExistingId_ReturnsAuthor() {
-        when(authorCacheId.get(1)).thenReturn(null);
-        when(authorRepository.findById(1)).thenReturn(Optional.of(author));
+        when(authorCacheId.computeIfAbsent(eq(1), any())).thenAnswer(invocation ->
+                invocation.<Function<Integer, AuthorSnapshot>>getArgument(1).apply(1));
+        when(authorRepository.findWithBooksById(1)).thenReturn(Optional.of(author));
+        author.getBooks().add(book);
 
-        Author result = authorService.findById(1);
+        AuthorSnapshot result = authorService.findById(1);
 
         assertNotNull(result);
         assertEquals("John", result.getName());
-        verify(authorCacheId).put(1, author);
+        assertEquals(1, result.getBookCount());
+        assertEquals(1, result.getBookId(0));
     }
 
     @Test
     void findById_NonExistingId_ThrowsResourceNotFoundException() {
-        when(authorCacheId.get(1)).thenReturn(null);
-        when(authorRepository.findById(1)).thenReturn(Optional.empty());
+        when(authorCacheId.computeIfAbsent(eq(1), any())).thenAnswer(invocation ->
+                invocation.<Function<Integer, AuthorSnapshot>>getArgument(1).apply(1));
+        when(authorRepository.findWithBooksById(1)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> authorService.findById(1));
     }
@@ -157,7 +179,23 @@ class AuthorServiceTest {
 
         assertNotNull(result);
         assertEquals("Jane", result.getName());
-        verify(authorCacheId).put(1, author);
+        verify(authorCacheId).invalidate(1);
+        verify(authorCacheId).put(eq(1), any(AuthorSnapshot.class));
+    }
+
+    @Test
+    void update_AuthorWithBooks_InvalidatesBookSnapshots() {
+        author.getBooks().add(book);
+        when(authorRepository.findById(1)).thenReturn(Optional.of(author));
+        when(authorRepository.save(any(Author.class))).thenReturn(author);
+
+        Author updatedAuthor = new Author();
+        updatedAuthor.setName("Jane");
+        updatedAuthor.setSurname("Smith");
+
+        authorService.update(1, updatedAuthor);
+
+        verify(bookCacheId).invalidate(1);
     }
 
     @Test
@@ -167,14 +205,28 @@ class AuthorServiceTest {
         boolean result = authorService.delete(1);
 
         assertTrue(result);
-        verify(authorCacheId).evict(1);
+        verify(authorCacheId).invalidate(1);
+    }
+
+    @Test
+    void delete_LastAuthorOfBook_InvalidatesBookAndReviewCaches() {
+        book.getAuthors().add(author);
+        author.getBooks().add(book);
+        when(authorRepository.findById(1)).thenReturn(Optional.of(author));
+
+        authorService.delete(1);
+
+        verify(bookRepository).delete(book);
+        verify(bookCacheId).invalidate(1);
+        verify(reviewCacheId).invalidate(1);
     }
 
     @Test
-    void readAll_ReturnsAllAuthors() {
-        when(authorRepository.findAll()).thenReturn(List.of(author));
+    void readPage_ReturnsAuthorsAfterId() {
+        when(authorRepository.findByIdGreaterThanOrderById(0, Limit.of(50)))
+                .thenReturn(List.of(author));
 
-        List<Author> result = authorService.readAll();
+        List<Author> result = authorService.readPage(0, 50);
 
         assertFalse(result.isEmpty());
         assertEquals(1, result.size());
@@ -266,13 +318,13 @@ class AuthorServiceTest {
 
     @Test
     void findById_AuthorInCache_ReturnsCachedAuthor() {
-        when(authorCacheId.get(1)).thenReturn(author);
+        when(authorCacheId.computeIfAbsent(eq(1), any())).thenReturn(AuthorSnapshot.of(author));
 
-        Author result = authorService.findById(1);
+        AuthorSnapshot result = authorService.findById(1);
 
         assertNotNull(result);
         assertEquals("John", result.getName());
-        verify(authorRepository, never()).findById(anyInt());
+        verify(authorRepository, never()).findWithBooksById(anyInt());
     }
 
     @Test
@@ -0,0 +1,87 @@
+package com.example.library.service;
+
+import com.example.library.mapper.AuthorMapper;
+import com.example.library.mapper.BookMapper;
+import com.example.library.mapper.ReviewMapper;
+import com.example.library.model.Book;
+import com.example.library.repository.BookRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookExportServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private BookExportService bookExportService;
+
+    @BeforeEach
+    void setUp() {
+        bookExportService = new BookExportService(bookRepository,
+                new BookMapper(new AuthorMapper(), new ReviewMapper()), new ObjectMapper(),
+                entityManager);
+    }
+
+    @Test
+    void exportBooks_WritesOneJsonLinePerBook() throws Exception {
+        when(bookRepository.streamAllByOrderById()).thenReturn(Stream.of(book(1), book(2)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        bookExportService.exportBooks(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"title\":\"Book 1\""));
+        assertTrue(lines[1].contains("\"title\":\"Book 2\""));
+    }
+
+    @Test
+    void exportBooks_ClearsPersistenceContextAfterEachChunk() throws Exception {
+        int total = BookExportService.CHUNK_SIZE * 2 + 1;
+        when(bookRepository.streamAllByOrderById())
+                .thenReturn(IntStream.rangeClosed(1, total).mapToObj(this::book));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        bookExportService.exportBooks(out);
+
+        assertEquals(total, out.toString(StandardCharsets.UTF_8).split("\n").length);
+        verify(entityManager, times(3)).clear();
+    }
+
+    @Test
+    void exportBooks_ClosesRepositoryStream() throws Exception {
+        List<String> closed = new ArrayList<>();
+        when(bookRepository.streamAllByOrderById())
+                .thenReturn(Stream.of(book(1)).onClose(() -> closed.add("stream")));
+
+        bookExportService.exportBooks(new ByteArrayOutputStream());
+
+        assertEquals(List.of("stream"), closed);
+    }
+
+    private Book book(int id) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle("Book " + id);
+        book.setAuthors(new ArrayList<>());
+        book.setReviews(new ArrayList<>());
+        return book;
+    }
+}
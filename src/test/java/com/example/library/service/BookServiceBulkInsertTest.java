@@ -0,0 +1,81 @@
+package com.example.library.service;
+
+import com.example.library.model.Author;
+import com.example.library.model.Book;
+import com.example.library.model.Review;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Число JDBC-запросов при BookService.createBulk с id из пулов последовательностей и
+ * пакетными вставками. Нужна база из DB_URL со схемой, к которой применен
+ * poolSequences.sql; транзакция теста откатывается.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@EnabledIfEnvironmentVariable(named = "DB_URL", matches = ".+")
+@Transactional
+class BookServiceBulkInsertTest {
+
+    private static final int BOOKS = 1_000;
+    private static final int AUTHORS = 10;
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void createBulk_PooledIdsAndJdbcBatching_PreparesStatementPerBatch() {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            books.add(book(i));
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+
+        bookService.createBulk(books);
+        entityManager.flush();
+
+        assertEquals(2L * BOOKS + AUTHORS, statistics.getEntityInsertCount());
+        // Один поиск авторов; nextval на каждый пул книг и отзывов и один на авторов
+        // (+1 на последовательность, если пул берется впервые); вставки книг, отзывов и
+        // строк book_author партиями по BATCH_SIZE и одна партия авторов. При IDENTITY
+        // было бы не меньше 3 * BOOKS запросов
+        long batches = (BOOKS + BATCH_SIZE - 1) / BATCH_SIZE;
+        long expected = 1 + (2 * batches + 1 + 3) + (3 * batches + 1);
+        assertTrue(statistics.getPrepareStatementCount() <= expected,
+                "Подготовлено запросов: " + statistics.getPrepareStatementCount());
+    }
+
+    private static Book book(int index) {
+        Author author = new Author();
+        author.setName("Bulk");
+        author.setSurname("Author-" + (char) ('a' + index % AUTHORS));
+
+        Book book = new Book();
+        book.setTitle("Bulk book " + index);
+        book.setAuthors(new ArrayList<>(List.of(author)));
+
+        Review review = new Review();
+        review.setMessage("Bulk review " + index);
+        review.setBook(book);
+        book.setReviews(new ArrayList<>(List.of(review)));
+        return book;
+    }
+}
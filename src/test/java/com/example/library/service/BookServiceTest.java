@@ -2,8 +2,11 @@ package com.example.library.service;
 
 import com.example.library.exception.*;
 import com.example.library.model.Author;
+import com.example.library.model.AuthorSnapshot;
 import com.example.library.model.Book;
+import com.example.library.model.BookSnapshot;
 import com.example.library.model.Review;
+import com.example.library.model.ReviewSnapshot;
 import com.example.library.repository.AuthorRepository;
 import com.example.library.repository.BookRepository;
 import com.example.library.repository.ReviewRepository;
@@ -14,8 +17,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.util.*;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -33,13 +38,19 @@ class BookServiceTest {
     private ReviewRepository reviewRepository;
 
     @Mock
-    private CacheUtil<Integer, Book> bookCacheId;
+    private CacheUtil<Integer, BookSnapshot> bookCacheId;
 
     @Mock
-    private CacheUtil<Integer, Author> authorCacheId;
+    private CacheUtil<Integer, AuthorSnapshot> authorCacheId;
 
     @Mock
-    private CacheUtil<Integer, List<Review>> reviewCacheId;
+    private CacheUtil<Integer, List<ReviewSnapshot>> reviewCacheId;
+
+    @Mock
+    private NegativeLookupService negativeLookupService;
+
+    @Mock
+    private SecondaryIndexService secondaryIndexService;
 
     @InjectMocks
     private BookService bookService;
@@ -73,7 +84,9 @@ class BookServiceTest {
 
     @Test
     void create_ValidBook_ReturnsCreatedBook() {
-        when(authorRepository.findByNameAndSurname("John", "Doe")).thenReturn(author);
+        when(authorRepository.findByNameAndSurnamePairs(new String[]{"John"},
+                new String[]{"Doe"}))
+                .thenReturn(List.of(author));
         when(bookRepository.save(any(Book.class))).thenReturn(book);
 
         Book result = bookService.create(book);
@@ -96,7 +109,9 @@ class BookServiceTest {
     @Test
     void createBulk_ValidBooks_ReturnsCreatedBooks() {
         List<Book> books = List.of(book);
-        when(authorRepository.findByNameAndSurname("John", "Doe")).thenReturn(author);
+        when(authorRepository.findByNameAndSurnamePairs(new String[]{"John"},
+                new String[]{"Doe"}))
+                .thenReturn(List.of(author));
         when(bookRepository.save(any(Book.class))).thenReturn(book);
 
         List<Book> result = bookService.createBulk(books);
@@ -105,6 +120,42 @@ class BookServiceTest {
         assertEquals(1, result.size());
     }
 
+    @Test
+    void createBulk_SharedNewAuthor_ResolvesOnceAndReusesInstance() {
+        Book second = new Book();
+        second.setTitle("Second Book");
+        second.setAuthors(new ArrayList<>(List.of(newAuthor("Jane", "Roe"))));
+        Book first = new Book();
+        first.setTitle("First Book");
+        first.setAuthors(new ArrayList<>(List.of(newAuthor("Jane", "Roe"),
+                newAuthor("John", "Doe"))));
+        when(authorRepository.findByNameAndSurnamePairs(new String[]{"Jane", "John"},
+                new String[]{"Roe", "Doe"})).thenReturn(List.of(author));
+        when(bookRepository.save(any(Book.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        bookService.createBulk(List.of(first, second));
+
+        verify(authorRepository, times(1)).findByNameAndSurnamePairs(any(), any());
+        verify(authorRepository, never()).findByNameAndSurname(any(), any());
+        assertSame(author, first.getAuthors().get(1));
+        assertSame(first.getAuthors().get(0), second.getAuthors().get(0));
+    }
+
+    @Test
+    void createBulk_CrossedNameAndSurname_QueriesExactPairs() {
+        Author janeDoe = newAuthor("Jane", "Doe");
+        Author johnRoe = newAuthor("John", "Roe");
+        book.setAuthors(new ArrayList<>(List.of(janeDoe, johnRoe)));
+        when(authorRepository.findByNameAndSurnamePairs(new String[]{"Jane", "John"},
+                new String[]{"Doe", "Roe"})).thenReturn(List.of());
+        when(bookRepository.save(any(Book.class))).thenReturn(book);
+
+        bookService.createBulk(List.of(book));
+
+        assertEquals(List.of(janeDoe, johnRoe), book.getAuthors());
+    }
+
     @Test
     void createBulk_EmptyList_ThrowsBadRequestException() {
         assertThrows(BadRequestException.class, () -> bookService.createBulk(Collections.emptyList()));
@@ -112,12 +163,86 @@ class BookServiceTest {
 
     @Test
     void findById_ExistingId_ReturnsBook() {
-        when(bookRepository.findById(1)).thenReturn(Optional.of(book));
+        when(bookCacheId.computeIfAbsent(eq(1), any())).thenAnswer(invocation ->
+                invocation.<Function<Integer, BookSnapshot>>getArgument(1).apply(1));
+        when(bookRepository.findWithAuthorsById(1)).thenReturn(Optional.of(book));
+        when(reviewRepository.findByBookId(1)).thenReturn(book.getReviews());
 
-        Book result = bookService.findById(1);
+        BookSnapshot result = bookService.findById(1);
 
         assertNotNull(result);
         assertEquals("Test Book", result.getTitle());
+        assertEquals(1, result.getAuthorCount());
+        assertEquals("Doe", result.getAuthorSurname(0));
+        assertEquals("Great book! Highly recommend.", result.getReviewMessage(0));
+    }
+
+    @Test
+    void findById_EntityChangedAfterLoad_SnapshotUnchanged() {
+        when(bookCacheId.computeIfAbsent(eq(1), any())).thenAnswer(invocation ->
+                invocation.<Function<Integer, BookSnapshot>>getArgument(1).apply(1));
+        when(bookRepository.findWithAuthorsById(1)).thenReturn(Optional.of(book));
+        when(reviewRepository.findByBookId(1)).thenReturn(book.getReviews());
+
+        BookSnapshot result = bookService.findById(1);
+        book.setTitle("Changed");
+        book.getAuthors().clear();
+        book.getReviews().clear();
+
+        assertEquals("Test Book", result.getTitle());
+        assertEquals(1, result.getAuthorCount());
+        assertEquals(1, result.getReviewCount());
+    }
+
+    @Test
+    void create_ValidBook_CachesSnapshotAndInvalidatesAuthors() {
+        when(authorRepository.findByNameAndSurnamePairs(new String[]{"John"},
+                new String[]{"Doe"}))
+                .thenReturn(List.of(author));
+        when(bookRepository.save(any(Book.class))).thenReturn(book);
+
+        bookService.create(book);
+
+        verify(bookCacheId).put(eq(1), any(BookSnapshot.class));
+        verify(authorCacheId).invalidate(1);
+        verify(authorCacheId, never()).put(anyInt(), any());
+    }
+
+    @Test
+    void findById_KnownMissingId_SkipsCacheAndDatabase() {
+        when(negativeLookupService.isMissingBook(1)).thenReturn(true);
+
+        assertThrows(ResourceNotFoundException.class, () -> bookService.findById(1));
+        verify(bookCacheId, never()).computeIfAbsent(anyInt(), any());
+        verify(bookRepository, never()).findWithAuthorsById(anyInt());
+    }
+
+    @Test
+    void findById_NonExistingId_MarksIdMissing() {
+        when(bookCacheId.computeIfAbsent(eq(1), any())).thenAnswer(invocation ->
+                invocation.<Function<Integer, BookSnapshot>>getArgument(1).apply(1));
+        when(bookRepository.findWithAuthorsById(1)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> bookService.findById(1));
+        verify(negativeLookupService).markBookMissing(1);
+    }
+
+    @Test
+    void findAllById_DeletedBook_SkipsItAndLoadsMissesInOneBatch() {
+        when(negativeLookupService.isMissingBook(3)).thenReturn(true);
+        when(bookCacheId.computeAllIfAbsent(eq(List.of(1, 2)), any())).thenAnswer(invocation ->
+                invocation.<Function<Set<Integer>, Map<Integer, BookSnapshot>>>getArgument(1)
+                        .apply(Set.of(1, 2)));
+        when(bookRepository.findWithAuthorsByIdIn(Set.of(1, 2))).thenReturn(List.of(book));
+        when(reviewRepository.findByBookIdIn(Set.of(1, 2))).thenReturn(book.getReviews());
+
+        List<BookSnapshot> result = bookService.findAllById(List.of(1, 2, 3));
+
+        assertEquals(1, result.size());
+        assertEquals("Test Book", result.get(0).getTitle());
+        assertEquals("Great book! Highly recommend.", result.get(0).getReviewMessage(0));
+        verify(negativeLookupService).markBookMissing(2);
+        verify(bookRepository, never()).findWithAuthorsById(anyInt());
     }
 
     @Test
@@ -131,9 +256,10 @@ class BookServiceTest {
 
     @Test
     void findBooksByReviewMessageContaining_ValidKeyword_ReturnsBooks() {
-        when(bookRepository.findBooksByReviewMessageContaining("good")).thenReturn(List.of(book));
+        when(bookRepository.findBooksByReviewMessageContaining("good", 0, Limit.of(50)))
+                .thenReturn(List.of(book));
 
-        List<Book> result = bookService.findBooksByReviewMessageContaining("good");
+        List<Book> result = bookService.findBooksByReviewMessageContaining("good", 0, 50);
 
         assertFalse(result.isEmpty());
         assertEquals("Test Book", result.get(0).getTitle());
@@ -141,26 +267,59 @@ class BookServiceTest {
 
     @Test
     void findBooksByReviewMessageContaining_NoResults_ThrowsException() {
-        when(bookRepository.findBooksByReviewMessageContaining("unknown")).thenReturn(Collections.emptyList());
+        when(bookRepository.findBooksByReviewMessageContaining("unknown", 0, Limit.of(50)))
+                .thenReturn(Collections.emptyList());
 
         assertThrows(ResourceNotFoundException.class,
-                () -> bookService.findBooksByReviewMessageContaining("unknown"));
+                () -> bookService.findBooksByReviewMessageContaining("unknown", 0, 50));
+    }
+
+    @Test
+    void findBooksByReviewMessageContaining_PastLastPage_ReturnsEmptyList() {
+        when(bookRepository.findBooksByReviewMessageContaining("good", 1, Limit.of(50)))
+                .thenReturn(Collections.emptyList());
+
+        assertTrue(bookService.findBooksByReviewMessageContaining("good", 1, 50).isEmpty());
+    }
+
+    @Test
+    void readPage_StartsAfterGivenId() {
+        when(bookRepository.findByIdGreaterThanOrderById(1, Limit.of(2))).thenReturn(List.of(book));
+
+        List<Book> result = bookService.readPage(1, 2);
+
+        assertEquals(List.of(book), result);
+        verify(bookRepository, never()).findAll();
     }
 
     @Test
     void findBooksByAuthorNameAndSurnameNative_ValidNames_ReturnsBooks() {
-        when(bookRepository.findBooksByAuthorNameAndSurnameNative("John", "Doe"))
-                .thenReturn(List.of(book));
+        when(secondaryIndexService.findBookIdsByAuthor("John", "Doe")).thenReturn(List.of(1));
+        when(bookCacheId.computeIfAbsent(eq(1), any())).thenReturn(BookSnapshot.of(book));
 
-        List<Book> result = bookService.findBooksByAuthorNameAndSurnameNative("John", "Doe");
+        List<BookSnapshot> result =
+                bookService.findBooksByAuthorNameAndSurnameNative("John", "Doe", 0, 50);
 
         assertFalse(result.isEmpty());
         assertEquals("Test Book", result.get(0).getTitle());
     }
 
+    @Test
+    void findBooksByAuthorNameAndSurnameNative_Page_SkipsIdsUpToAfter() {
+        when(secondaryIndexService.findBookIdsByAuthor("John", "Doe")).thenReturn(List.of(1, 2, 3));
+        when(bookCacheId.computeIfAbsent(eq(2), any())).thenReturn(BookSnapshot.of(book));
+
+        List<BookSnapshot> result =
+                bookService.findBooksByAuthorNameAndSurnameNative("John", "Doe", 1, 1);
+
+        assertEquals(1, result.size());
+        verify(bookCacheId, never()).computeIfAbsent(eq(1), any());
+        verify(bookCacheId, never()).computeIfAbsent(eq(3), any());
+    }
+
     @Test
     void findByTitle_NonExistingTitle_ThrowsException() {
-        when(bookRepository.findByTitle("Unknown")).thenReturn(Optional.empty());
+        when(secondaryIndexService.findBookIdsByTitle("Unknown")).thenReturn(List.of());
 
         assertThrows(ResourceNotFoundException.class,
                 () -> bookService.findByTitle("Unknown"));
@@ -168,11 +327,12 @@ class BookServiceTest {
 
     @Test
     void findBooksByAuthorNameAndSurnameNative_NoResults_ThrowsException() {
-        when(bookRepository.findBooksByAuthorNameAndSurnameNative("Unknown", "Author"))
+        when(secondaryIndexService.findBookIdsByAuthor("Unknown", "Author"))
                 .thenReturn(Collections.emptyList());
 
         assertThrows(ResourceNotFoundException.class,
-                () -> bookService.findBooksByAuthorNameAndSurnameNative("Unknown", "Author"));
+                () -> bookService.findBooksByAuthorNameAndSurnameNative("Unknown", "Author",
+                        0, 50));
     }
     @Test
     void create_BookWithoutAuthors_ThrowsBadRequestException() {
@@ -202,12 +362,22 @@ class BookServiceTest {
     }
     @Test
     void findByTitle_ExistingTitle_ReturnsBook() {
-        when(bookRepository.findByTitle("Test Book")).thenReturn(Optional.of(book));
+        when(secondaryIndexService.findBookIdsByTitle("Test Book")).thenReturn(List.of(1));
+        when(bookCacheId.computeIfAbsent(eq(1), any())).thenReturn(BookSnapshot.of(book));
 
-        Book result = bookService.findByTitle("Test Book");
+        BookSnapshot result = bookService.findByTitle("Test Book");
 
         assertNotNull(result);
         assertEquals("Test Book", result.getTitle());
+        verify(bookRepository, never()).findByTitle(any());
+    }
+
+    @Test
+    void findByTitle_DifferentCase_ThrowsException() {
+        when(secondaryIndexService.findBookIdsByTitle("test book")).thenReturn(List.of(1));
+        when(bookCacheId.computeIfAbsent(eq(1), any())).thenReturn(BookSnapshot.of(book));
+
+        assertThrows(ResourceNotFoundException.class, () -> bookService.findByTitle("test book"));
     }
 
     @Test
@@ -261,4 +431,11 @@ class BookServiceTest {
         assertTrue(result);
         verify(authorRepository, never()).delete(author);
     }
-}
\ No newline at end of file
+
+    private static Author newAuthor(String name, String surname) {
+        Author newAuthor = new Author();
+        newAuthor.setName(name);
+        newAuthor.setSurname(surname);
+        return newAuthor;
+    }
+}
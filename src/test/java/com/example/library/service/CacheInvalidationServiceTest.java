@@ -0,0 +1,61 @@
+package com.example.library.service;
+
+import com.example.library.util.CacheUtil;
+import com.example.library.util.InvalidationMessage;
+import com.example.library.util.LoopbackInvalidationTransport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheInvalidationServiceTest {
+
+    private LoopbackInvalidationTransport transport;
+    private CacheUtil<Integer, String> firstNodeCache;
+    private CacheUtil<Integer, String> secondNodeCache;
+    private List<InvalidationMessage> messages;
+
+    @BeforeEach
+    void setUp() {
+        transport = new LoopbackInvalidationTransport();
+        messages = new ArrayList<>();
+        transport.subscribe(messages::add);
+        firstNodeCache = newCache();
+        secondNodeCache = newCache();
+        new CacheInvalidationService(List.of(firstNodeCache), transport);
+        new CacheInvalidationService(List.of(secondNodeCache), transport);
+        firstNodeCache.put(1, "one");
+        secondNodeCache.put(1, "one");
+    }
+
+    @Test
+    void invalidate_RemovesEntryOnPeerNode() {
+        firstNodeCache.invalidate(1);
+
+        assertNull(firstNodeCache.get(1));
+        assertNull(secondNodeCache.get(1));
+        assertEquals(1, messages.size());
+    }
+
+    @Test
+    void evict_StaysLocal() {
+        firstNodeCache.evict(1);
+
+        assertNull(firstNodeCache.get(1));
+        assertEquals("one", secondNodeCache.get(1));
+        assertTrue(messages.isEmpty());
+    }
+
+    @Test
+    void receive_UnknownCache_Ignored() {
+        transport.publish(new InvalidationMessage("other-node", "unknown", 1));
+
+        assertEquals("one", firstNodeCache.get(1));
+        assertEquals("one", secondNodeCache.get(1));
+    }
+
+    private static CacheUtil<Integer, String> newCache() {
+        return new CacheUtil<>(10);
+    }
+}
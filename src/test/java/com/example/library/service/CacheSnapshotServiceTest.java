@@ -0,0 +1,161 @@
+package com.example.library.service;
+
+import com.example.library.config.CacheProperties;
+import com.example.library.model.Author;
+import com.example.library.model.AuthorSnapshot;
+import com.example.library.model.Book;
+import com.example.library.model.BookSnapshot;
+import com.example.library.model.Review;
+import com.example.library.repository.AuthorRepository;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.EntityVersion;
+import com.example.library.util.CacheSettings;
+import com.example.library.util.CacheUtil;
+import com.example.library.util.EvictionMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheSnapshotServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private AuthorRepository authorRepository;
+
+    @TempDir
+    private Path tempDir;
+
+    private CacheProperties cacheProperties;
+
+    @BeforeEach
+    void setUp() {
+        cacheProperties = new CacheProperties();
+        cacheProperties.getSnapshot().setFile(tempDir.resolve("snapshot.bin").toString());
+    }
+
+    @Test
+    void restore_VersionsUnchanged_RestoresEntries() {
+        CacheUtil<Integer, BookSnapshot> books = new CacheUtil<>(10);
+        CacheUtil<Integer, AuthorSnapshot> authors = new CacheUtil<>(10);
+        books.put(1, BookSnapshot.of(book(), book().getReviews(), "b1"));
+        authors.put(2, AuthorSnapshot.of(book().getAuthors().get(0), "a1"));
+        service(books, authors).save();
+        verifyNoInteractions(bookRepository, authorRepository);
+        when(bookRepository.findSnapshotVersions(anyCollection()))
+                .thenReturn(List.of(version(1, "b1")));
+        when(authorRepository.findSnapshotVersions(anyCollection()))
+                .thenReturn(List.of(version(2, "a1")));
+
+        CacheUtil<Integer, BookSnapshot> restoredBooks = new CacheUtil<>(10);
+        CacheUtil<Integer, AuthorSnapshot> restoredAuthors = new CacheUtil<>(10);
+        service(restoredBooks, restoredAuthors).restore();
+
+        BookSnapshot book = restoredBooks.get(1);
+        assertNotNull(book);
+        assertEquals("Test Book", book.getTitle());
+        assertEquals("Doe", book.getAuthorSurname(0));
+        assertEquals("Great book!", book.getReviewMessage(0));
+        assertEquals(1, restoredAuthors.get(2).getBookId(0));
+    }
+
+    @Test
+    void restore_VersionChanged_SkipsEntry() {
+        CacheUtil<Integer, BookSnapshot> books = new CacheUtil<>(10);
+        books.put(1, BookSnapshot.of(book(), book().getReviews(), "b1"));
+        service(books, new CacheUtil<>(10)).save();
+        when(bookRepository.findSnapshotVersions(anyCollection()))
+                .thenReturn(List.of(version(1, "b2")));
+
+        CacheUtil<Integer, BookSnapshot> restoredBooks = new CacheUtil<>(10);
+        service(restoredBooks, new CacheUtil<>(10)).restore();
+
+        assertNull(restoredBooks.get(1));
+    }
+
+    @Test
+    void save_SnapshotWithoutVersion_IsNotSaved() {
+        CacheUtil<Integer, BookSnapshot> books = new CacheUtil<>(10);
+        books.put(1, BookSnapshot.of(book()));
+        service(books, new CacheUtil<>(10)).save();
+
+        CacheUtil<Integer, BookSnapshot> restoredBooks = new CacheUtil<>(10);
+        service(restoredBooks, new CacheUtil<>(10)).restore();
+
+        assertEquals(0, restoredBooks.size());
+    }
+
+    @Test
+    void restore_KeepsOriginalWriteAge() {
+        CacheUtil<Integer, BookSnapshot> books = new CacheUtil<>(10);
+        books.put(1, BookSnapshot.of(book(), book().getReviews(), "b1"),
+                Duration.ofMinutes(20));
+        service(books, new CacheUtil<>(10)).save();
+        when(bookRepository.findSnapshotVersions(anyCollection()))
+                .thenReturn(List.of(version(1, "b1")));
+
+        CacheUtil<Integer, BookSnapshot> restoredBooks = new CacheUtil<>("book",
+                new CacheSettings(EvictionMode.LRU, 10, 0, Duration.ofMinutes(15), null, null));
+        service(restoredBooks, new CacheUtil<>(10)).restore();
+
+        assertNull(restoredBooks.get(1));
+    }
+
+    @Test
+    void restore_NoFile_DoesNothing() {
+        CacheUtil<Integer, BookSnapshot> books = new CacheUtil<>(10);
+
+        service(books, new CacheUtil<>(10)).restore();
+
+        assertEquals(0, books.size());
+        verifyNoInteractions(bookRepository, authorRepository);
+    }
+
+    private CacheSnapshotService service(CacheUtil<Integer, BookSnapshot> books,
+                                         CacheUtil<Integer, AuthorSnapshot> authors) {
+        return new CacheSnapshotService(bookRepository, authorRepository, books, authors,
+                cacheProperties);
+    }
+
+    private static Book book() {
+        Book book = new Book();
+        book.setId(1);
+        book.setTitle("Test Book");
+        Author author = new Author();
+        author.setId(2);
+        author.setName("John");
+        author.setSurname("Doe");
+        author.setBooks(List.of(book));
+        book.setAuthors(List.of(author));
+        Review review = new Review();
+        review.setId(3);
+        review.setMessage("Great book!");
+        book.setReviews(List.of(review));
+        return book;
+    }
+
+    private static EntityVersion version(int id, String version) {
+        return new EntityVersion() {
+            @Override
+            public Integer getId() {
+                return id;
+            }
+
+            @Override
+            public String getVersion() {
+                return version;
+            }
+        };
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.library.service;
+
+import com.example.library.config.CacheProperties;
+import com.example.library.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheWarmUpServiceTest {
+
+    @Mock
+    private VisitCounterService visitCounterService;
+
+    @Mock
+    private BookService bookService;
+
+    @Mock
+    private AuthorService authorService;
+
+    @Mock
+    private CacheProperties cacheProperties;
+
+    @InjectMocks
+    private CacheWarmUpService cacheWarmUpService;
+
+    @Test
+    void warmUp_LoadsMostVisitedEntriesFirst() {
+        when(visitCounterService.getAllCounters()).thenReturn(Map.of(
+                "/books/1", 5,
+                "/books/2", 20,
+                "/authors/3", 7,
+                "/authors/3/books", 8,
+                "/books", 100,
+                "/api/counter/all", 50));
+
+        int loaded = cacheWarmUpService.warmUp(Duration.ofMinutes(1), 10);
+
+        assertEquals(3, loaded);
+        InOrder inOrder = inOrder(bookService, authorService);
+        inOrder.verify(bookService).findById(2);
+        inOrder.verify(authorService).findById(3);
+        inOrder.verify(bookService).findById(1);
+    }
+
+    @Test
+    void warmUp_MaximumEntriesReached_StopsLoading() {
+        when(visitCounterService.getAllCounters()).thenReturn(Map.of(
+                "/books/1", 5,
+                "/books/2", 20));
+
+        int loaded = cacheWarmUpService.warmUp(Duration.ofMinutes(1), 1);
+
+        assertEquals(1, loaded);
+        verify(bookService).findById(2);
+        verify(bookService, never()).findById(1);
+    }
+
+    @Test
+    void warmUp_MissingEntry_SkipsIt() {
+        when(visitCounterService.getAllCounters()).thenReturn(Map.of(
+                "/books/1", 5,
+                "/books/2", 20));
+        when(bookService.findById(2)).thenThrow(new ResourceNotFoundException("Book not found"));
+
+        int loaded = cacheWarmUpService.warmUp(Duration.ofMinutes(1), 10);
+
+        assertEquals(1, loaded);
+        verify(bookService).findById(1);
+    }
+
+    @Test
+    void warmUp_BudgetExhausted_LoadsNothing() {
+        when(visitCounterService.getAllCounters()).thenReturn(Map.of("/books/1", 5));
+
+        int loaded = cacheWarmUpService.warmUp(Duration.ZERO, 10);
+
+        assertEquals(0, loaded);
+        verifyNoInteractions(bookService);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.library.service;
+
+import com.example.library.config.CacheProperties;
+import com.example.library.model.AuthorSnapshot;
+import com.example.library.model.BookSnapshot;
+import com.example.library.util.CacheUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotKeyServiceTest {
+
+    private VisitCounterService visitCounterService;
+    private CacheUtil<Integer, BookSnapshot> bookCache;
+    private CacheUtil<Integer, AuthorSnapshot> authorCache;
+    private HotKeyService hotKeyService;
+
+    @BeforeEach
+    void setUp() {
+        visitCounterService = new VisitCounterService(null, "unused.json");
+        bookCache = new CacheUtil<>(10);
+        authorCache = new CacheUtil<>(10);
+        CacheProperties cacheProperties = new CacheProperties();
+        cacheProperties.getHotKeys().setMaximumPinned(1);
+        cacheProperties.getHotKeys().setMinimumVisits(5);
+        hotKeyService = new HotKeyService(visitCounterService, bookCache, authorCache,
+                cacheProperties);
+    }
+
+    @Test
+    void detect_FrequentlyVisitedBook_IsPinned() {
+        visit("/books/1", 100);
+        hotKeyService.detect();
+        visit("/books/1", 10);
+        visit("/books/2", 6);
+        visit("/authors/3/books", 5);
+
+        hotKeyService.detect();
+
+        assertEquals(Set.of(1), bookCache.getPinnedKeys());
+        assertEquals(Set.of(3), authorCache.getPinnedKeys());
+        assertEquals(Map.of("book", Set.of(1), "author", Set.of(3)),
+                hotKeyService.getPinnedKeys());
+    }
+
+    @Test
+    void detect_FirstRun_OnlyRecordsBaseline() {
+        visit("/books/1", 100);
+
+        hotKeyService.detect();
+
+        assertTrue(bookCache.getPinnedKeys().isEmpty());
+    }
+
+    @Test
+    void detect_VisitsStop_UnpinsKeyAfterScoreDecays() {
+        hotKeyService.detect();
+        visit("/books/1", 10);
+        hotKeyService.detect();
+        assertEquals(Set.of(1), bookCache.getPinnedKeys());
+
+        hotKeyService.detect();
+
+        assertEquals(Set.of(1), bookCache.getPinnedKeys());
+        hotKeyService.detect();
+        assertTrue(bookCache.getPinnedKeys().isEmpty());
+    }
+
+    private void visit(String url, int times) {
+        for (int i = 0; i < times; i++) {
+            visitCounterService.incrementCounter(url);
+        }
+    }
+}
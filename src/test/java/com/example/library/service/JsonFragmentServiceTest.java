@@ -0,0 +1,135 @@
+package com.example.library.service;
+
+import com.example.library.config.CacheConfig;
+import com.example.library.dto.AuthorDto;
+import com.example.library.dto.BookDto;
+import com.example.library.mapper.AuthorMapper;
+import com.example.library.mapper.BookMapper;
+import com.example.library.mapper.ReviewMapper;
+import com.example.library.model.Author;
+import com.example.library.model.AuthorSnapshot;
+import com.example.library.model.Book;
+import com.example.library.model.BookSnapshot;
+import com.example.library.util.CacheUtil;
+import com.example.library.util.InvalidationMessage;
+import com.example.library.util.LoopbackInvalidationTransport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonFragmentServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CacheUtil<Integer, BookSnapshot> bookCacheId;
+    private CacheUtil<Integer, byte[]> bookJsonCacheId;
+    private LoopbackInvalidationTransport transport;
+    private JsonFragmentService jsonFragmentService;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        AuthorMapper authorMapper = new AuthorMapper();
+        bookCacheId = new CacheUtil<>(10);
+        bookJsonCacheId = new CacheUtil<>(10);
+        transport = new LoopbackInvalidationTransport();
+        jsonFragmentService = new JsonFragmentService(objectMapper,
+                new BookMapper(authorMapper, new ReviewMapper()), authorMapper,
+                bookCacheId, new CacheUtil<Integer, AuthorSnapshot>(10),
+                bookJsonCacheId, new CacheUtil<>(10), transport);
+
+        Author author = new Author();
+        author.setId(1);
+        author.setName("John");
+        author.setSurname("Doe");
+
+        book = new Book();
+        book.setId(1);
+        book.setTitle("Test Book");
+        book.setAuthors(new ArrayList<>(List.of(author)));
+        book.setReviews(new ArrayList<>());
+    }
+
+    @Test
+    void renderBooks_StitchesFragmentsIntoJsonArray() throws Exception {
+        Book second = new Book();
+        second.setId(2);
+        second.setTitle("Second Book");
+
+        byte[] json = renderBooks(List.of(book, second));
+
+        BookDto[] books = objectMapper.readValue(json, BookDto[].class);
+        assertEquals(2, books.length);
+        assertEquals("Test Book", books[0].getTitle());
+        assertEquals("Doe", books[0].getAuthors().get(0).getSurname());
+        assertEquals("Second Book", books[1].getTitle());
+    }
+
+    @Test
+    void renderBooks_EmptyList_ReturnsEmptyArray() {
+        byte[] json = renderBooks(List.of());
+
+        assertEquals("[]", new String(json, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void renderBooks_RepeatedCall_ReusesFragment() throws Exception {
+        renderBooks(List.of(book));
+        book.setTitle("Changed");
+
+        byte[] json = renderBooks(List.of(book));
+
+        assertEquals("Test Book", objectMapper.readValue(json, BookDto[].class)[0].getTitle());
+    }
+
+    @Test
+    void renderBooks_BookInvalidated_RendersAgain() throws Exception {
+        renderBooks(List.of(book));
+        book.setTitle("Changed");
+
+        bookCacheId.invalidate(1);
+        byte[] json = renderBooks(List.of(book));
+
+        assertEquals("Changed", objectMapper.readValue(json, BookDto[].class)[0].getTitle());
+    }
+
+    @Test
+    void renderBooks_PeerInvalidation_EvictsFragment() {
+        renderBooks(List.of(book));
+
+        transport.publish(new InvalidationMessage("peer", CacheConfig.BOOK_CACHE, 1));
+
+        assertNull(bookJsonCacheId.get(1));
+    }
+
+    @Test
+    void renderBooks_InvalidatedAfterRead_DoesNotKeepFragment() throws Exception {
+        long readMark = jsonFragmentService.readMark();
+        // Книга прочитана, затем обновление фиксируется и инвалидирует запись
+        bookCacheId.invalidate(1);
+
+        byte[] json = jsonFragmentService.renderBooks(List.of(book), readMark);
+
+        assertEquals("Test Book", objectMapper.readValue(json, BookDto[].class)[0].getTitle());
+        assertNull(bookJsonCacheId.get(1));
+        renderBooks(List.of(book));
+        assertNotNull(bookJsonCacheId.get(1));
+    }
+
+    @Test
+    void renderAuthors_ReturnsAuthorDtos() throws Exception {
+        byte[] json = jsonFragmentService.renderAuthors(book.getAuthors(),
+                jsonFragmentService.readMark());
+
+        AuthorDto[] authors = objectMapper.readValue(json, AuthorDto[].class);
+        assertEquals(1, authors.length);
+        assertEquals("John", authors[0].getName());
+    }
+
+    private byte[] renderBooks(List<Book> books) {
+        return jsonFragmentService.renderBooks(books, jsonFragmentService.readMark());
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.library.service;
+
+import com.example.library.model.AuthorSnapshot;
+import com.example.library.model.BookSnapshot;
+import com.example.library.repository.AuthorRepository;
+import com.example.library.repository.BookRepository;
+import com.example.library.util.CacheUtil;
+import com.example.library.util.IntKeyCache;
+import com.example.library.util.InvalidationMessage;
+import com.example.library.util.LoopbackInvalidationTransport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NegativeLookupServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private AuthorRepository authorRepository;
+
+    private CacheUtil<Integer, BookSnapshot> bookCacheId;
+    private LoopbackInvalidationTransport transport;
+    private NegativeLookupService negativeLookupService;
+
+    @BeforeEach
+    void setUp() {
+        bookCacheId = new CacheUtil<>(10);
+        transport = new LoopbackInvalidationTransport();
+        negativeLookupService = new NegativeLookupService(bookRepository, authorRepository,
+                bookCacheId, new CacheUtil<Integer, AuthorSnapshot>(10),
+                new IntKeyCache<>("book-missing", 10, null),
+                new IntKeyCache<>("author-missing", 10, null), transport);
+    }
+
+    @Test
+    void isMissingBook_BeforeRebuild_ReturnsFalse() {
+        assertFalse(negativeLookupService.isMissingBook(999));
+    }
+
+    @Test
+    void isMissingBook_AfterRebuild_UsesFilter() {
+        when(bookRepository.count()).thenReturn(2L);
+        when(bookRepository.findAllIds()).thenReturn(List.of(1, 2));
+
+        negativeLookupService.rebuild();
+
+        assertFalse(negativeLookupService.isMissingBook(1));
+        assertFalse(negativeLookupService.isMissingBook(2));
+        assertTrue(negativeLookupService.isMissingBook(999));
+    }
+
+    @Test
+    void invalidate_NewBook_NoLongerMissing() {
+        negativeLookupService.rebuild();
+
+        bookCacheId.invalidate(3);
+
+        assertFalse(negativeLookupService.isMissingBook(3));
+    }
+
+    @Test
+    void receive_PeerInvalidation_NoLongerMissing() {
+        negativeLookupService.rebuild();
+
+        transport.publish(new InvalidationMessage("peer", "cache", 4));
+
+        assertTrue(negativeLookupService.isMissingBook(4));
+        transport.publish(new InvalidationMessage("peer", "book", 4));
+        assertFalse(negativeLookupService.isMissingBook(4));
+    }
+
+    @Test
+    void markBookMissing_RememberedUntilInvalidated() {
+        negativeLookupService.markBookMissing(5);
+        assertTrue(negativeLookupService.isMissingBook(5));
+
+        bookCacheId.invalidate(5);
+
+        assertFalse(negativeLookupService.isMissingBook(5));
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.library.service;
+
+import com.example.library.config.CacheConfig;
+import com.example.library.model.AuthorSnapshot;
+import com.example.library.model.BookSnapshot;
+import com.example.library.model.CachedResponse;
+import com.example.library.model.ReviewSnapshot;
+import com.example.library.repository.AuthorRepository;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.EntityVersion;
+import com.example.library.util.CacheUtil;
+import com.example.library.util.InvalidationMessage;
+import com.example.library.util.LoopbackInvalidationTransport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ResponseCacheServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private AuthorRepository authorRepository;
+
+    private CacheUtil<Integer, BookSnapshot> bookCacheId;
+    private CacheUtil<Integer, AuthorSnapshot> authorCacheId;
+    private CacheUtil<Integer, List<ReviewSnapshot>> reviewCacheId;
+    private LoopbackInvalidationTransport transport;
+    private ResponseCacheService responseCacheService;
+
+    @BeforeEach
+    void setUp() {
+        bookCacheId = new CacheUtil<>(10);
+        authorCacheId = new CacheUtil<>(10);
+        reviewCacheId = new CacheUtil<>(10);
+        transport = new LoopbackInvalidationTransport();
+        responseCacheService = new ResponseCacheService(new CacheUtil<>(10), bookRepository,
+                authorRepository, bookCacheId, authorCacheId, reviewCacheId, transport);
+    }
+
+    @Test
+    void tagsFor_MapsPathsToTags() {
+        assertArrayEquals(new String[] {"book"}, ResponseCacheService.tagsFor("/books"));
+        assertArrayEquals(new String[] {"book"},
+                ResponseCacheService.tagsFor("/books/search/by-title"));
+        assertArrayEquals(new String[] {"book:5"}, ResponseCacheService.tagsFor("/books/5"));
+        assertArrayEquals(new String[] {"review:5"},
+                ResponseCacheService.tagsFor("/books/5/reviews/7"));
+        assertArrayEquals(new String[] {"author:3", "book"},
+                ResponseCacheService.tagsFor("/authors/3/books"));
+        assertNull(ResponseCacheService.tagsFor("/api/counter/all"));
+        assertNull(ResponseCacheService.tagsFor("/books/export"));
+    }
+
+    @Test
+    void get_AfterPut_ReturnsResponse() {
+        store("/books/1");
+
+        assertNotNull(responseCacheService.get("/books/1"));
+    }
+
+    @Test
+    void get_EntityInvalidated_ReturnsNull() {
+        store("/books/1");
+        store("/books/2");
+        store("/books");
+
+        bookCacheId.invalidate(1);
+
+        assertNull(responseCacheService.get("/books/1"));
+        assertNull(responseCacheService.get("/books"));
+        assertNotNull(responseCacheService.get("/books/2"));
+    }
+
+    @Test
+    void get_ReviewsInvalidated_KeepsBookResponse() {
+        store("/books/1");
+        store("/books/1/reviews");
+
+        reviewCacheId.invalidate(1);
+
+        assertNull(responseCacheService.get("/books/1/reviews"));
+        assertNotNull(responseCacheService.get("/books/1"));
+    }
+
+    @Test
+    void get_PeerInvalidation_ReturnsNull() {
+        store("/authors/3");
+
+        transport.publish(new InvalidationMessage("peer", CacheConfig.AUTHOR_CACHE, 3));
+
+        assertNull(responseCacheService.get("/authors/3"));
+    }
+
+    @Test
+    void put_InvalidatedDuringRequest_DoesNotStore() {
+        String[] tags = ResponseCacheService.tagsFor("/books/1");
+        long[] versions = responseCacheService.tagVersions(tags);
+
+        bookCacheId.invalidate(1);
+        responseCacheService.put("/books/1", response(tags, versions));
+
+        assertNull(responseCacheService.get("/books/1"));
+    }
+
+    @Test
+    void etag_BookAndReviews_UseBookRowVersion() {
+        when(bookRepository.findSnapshotVersions(List.of(5)))
+                .thenReturn(List.of(version(5, "b5")));
+
+        assertEquals("\"b5\"", responseCacheService.etag("/books/5"));
+        assertEquals("\"b5\"", responseCacheService.etag("/books/5/reviews/7"));
+    }
+
+    @Test
+    void etag_MissingEntityOrList_ReturnsNull() {
+        assertNull(responseCacheService.etag("/authors/3"));
+        assertNull(responseCacheService.etag("/books"));
+        assertNull(responseCacheService.etag("/books/search/by-title"));
+    }
+
+    @Test
+    void etag_AuthorBooks_ChangesWithBookVersion() {
+        when(authorRepository.findSnapshotVersions(List.of(3)))
+                .thenReturn(List.of(version(3, "a3")));
+        when(bookRepository.findSnapshotVersionsByAuthorId(3))
+                .thenReturn(List.of(version(1, "b1")))
+                .thenReturn(List.of(version(1, "b1")))
+                .thenReturn(List.of(version(1, "b2")));
+
+        String before = responseCacheService.etag("/authors/3/books");
+
+        assertEquals(before, responseCacheService.etag("/authors/3/books"));
+        assertNotEquals(before, responseCacheService.etag("/authors/3/books"));
+    }
+
+    @Test
+    void matchesAny_ParsesIfNoneMatch() {
+        String etag = "\"abc-1\"";
+
+        assertTrue(ResponseCacheService.matchesAny("\"x\", W/\"abc-1\"", etag));
+        assertFalse(ResponseCacheService.matchesAny("*", etag));
+        assertTrue(ResponseCacheService.isWildcard(" * "));
+        assertFalse(ResponseCacheService.isWildcard("\"abc-1\""));
+        assertFalse(ResponseCacheService.matchesAny("\"abc-2\"", etag));
+        assertFalse(ResponseCacheService.matchesAny(null, etag));
+    }
+
+    private void store(String path) {
+        String[] tags = ResponseCacheService.tagsFor(path);
+        responseCacheService.put(path, response(tags, responseCacheService.tagVersions(tags)));
+    }
+
+    private static CachedResponse response(String[] tags, long[] versions) {
+        return new CachedResponse("application/json", new byte[] {'[', ']'},
+                System.currentTimeMillis(), null, null, tags, versions, null);
+    }
+
+    private static EntityVersion version(int id, String version) {
+        return new EntityVersion() {
+            @Override
+            public Integer getId() {
+                return id;
+            }
+
+            @Override
+            public String getVersion() {
+                return version;
+            }
+        };
+    }
+}
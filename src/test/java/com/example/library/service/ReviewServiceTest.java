@@ -2,7 +2,9 @@ package com.example.library.service;
 
 import com.example.library.exception.*;
 import com.example.library.model.Book;
+import com.example.library.model.BookSnapshot;
 import com.example.library.model.Review;
+import com.example.library.model.ReviewSnapshot;
 import com.example.library.repository.BookRepository;
 import com.example.library.repository.ReviewRepository;
 import com.example.library.util.CacheUtil;
@@ -13,6 +15,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.*;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -27,10 +30,13 @@ class ReviewServiceTest {
     private BookRepository bookRepository;
 
     @Mock
-    private CacheUtil<Integer, List<Review>> reviewCacheId;
+    private CacheUtil<Integer, List<ReviewSnapshot>> reviewCacheId;
 
     @Mock
-    private CacheUtil<Integer, Book> bookCacheId;
+    private CacheUtil<Integer, BookSnapshot> bookCacheId;
+
+    @Mock
+    private NegativeLookupService negativeLookupService;
 
     @InjectMocks
     private ReviewService reviewService;
@@ -83,6 +89,8 @@ class ReviewServiceTest {
 
         assertNotNull(result);
         assertEquals(1, result.size());
+        verify(reviewCacheId).invalidate(1);
+        verify(bookCacheId).invalidate(1);
     }
 
     @Test
@@ -92,21 +100,65 @@ class ReviewServiceTest {
 
     @Test
     void getReviewsByBookId_ExistingBook_ReturnsReviews() {
+        stubReviewCacheMiss();
         when(bookRepository.existsById(1)).thenReturn(true);
         when(reviewRepository.findByBookId(1)).thenReturn(List.of(review));
 
-        List<Review> result = reviewService.getReviewsByBookId(1);
+        List<ReviewSnapshot> result = reviewService.getReviewsByBookId(1, 0, 50);
 
         assertFalse(result.isEmpty());
-        assertEquals("Great book!", result.get(0).getMessage());
+        assertEquals("Great book!", result.get(0).message());
         verify(reviewRepository).findByBookId(1);
     }
 
     @Test
     void getReviewsByBookId_NonExistingBook_ThrowsException() {
+        stubReviewCacheMiss();
         when(bookRepository.existsById(1)).thenReturn(false);
 
-        assertThrows(ResourceNotFoundException.class, () -> reviewService.getReviewsByBookId(1));
+        assertThrows(ResourceNotFoundException.class,
+                () -> reviewService.getReviewsByBookId(1, 0, 50));
+        verify(negativeLookupService).markBookMissing(1);
+    }
+
+    @Test
+    void getReviewsByBookId_KnownMissingBook_SkipsDatabase() {
+        when(negativeLookupService.isMissingBook(1)).thenReturn(true);
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> reviewService.getReviewsByBookId(1, 0, 50));
+        verify(bookRepository, never()).existsById(anyInt());
+    }
+
+    @Test
+    void getReviewsByBookId_CachedReviews_SkipsDatabase() {
+        when(reviewCacheId.computeIfAbsent(eq(1), any()))
+                .thenReturn(List.of(ReviewSnapshot.of(review)));
+
+        List<ReviewSnapshot> result = reviewService.getReviewsByBookId(1, 0, 50);
+
+        assertEquals(1, result.size());
+        verifyNoInteractions(bookRepository, reviewRepository);
+    }
+
+    @Test
+    void getReviewsByBookId_Page_ReturnsReviewsAfterId() {
+        when(reviewCacheId.computeIfAbsent(eq(1), any())).thenReturn(List.of(
+                new ReviewSnapshot(1, "First"), new ReviewSnapshot(2, "Second"),
+                new ReviewSnapshot(3, "Third")));
+
+        List<ReviewSnapshot> result = reviewService.getReviewsByBookId(1, 1, 1);
+
+        assertEquals(List.of(new ReviewSnapshot(2, "Second")), result);
+    }
+
+    @Test
+    void getReviewsByBookId_CachedEmptyList_ThrowsWithoutDatabase() {
+        when(reviewCacheId.computeIfAbsent(eq(1), any())).thenReturn(List.of());
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> reviewService.getReviewsByBookId(1, 0, 50));
+        verifyNoInteractions(bookRepository, reviewRepository);
     }
 
     @Test
@@ -133,17 +185,18 @@ class ReviewServiceTest {
 
     @Test
     void getReviewsByBookId_NoReviews_ThrowsException() {
+        stubReviewCacheMiss();
         when(bookRepository.existsById(1)).thenReturn(true);
         when(reviewRepository.findByBookId(1)).thenReturn(Collections.emptyList());
 
         ResourceNotFoundException exception = assertThrows(
                 ResourceNotFoundException.class,
-                () -> reviewService.getReviewsByBookId(1)
+                () -> reviewService.getReviewsByBookId(1, 0, 50)
         );
 
         assertEquals("No reviews found for book with id: 1", exception.getMessage());
 
-        verify(reviewCacheId, never()).put(anyInt(), any());
+        verify(reviewCacheId).computeIfAbsent(eq(1), any());
         verify(reviewRepository).findByBookId(1);
     }
 
@@ -200,4 +253,8 @@ class ReviewServiceTest {
         assertThrows(BadRequestException.class, () -> reviewService.createBulk(reviews, 1));
     }
 
-}
\ No newline at end of file
+    private void stubReviewCacheMiss() {
+        when(reviewCacheId.computeIfAbsent(eq(1), any())).thenAnswer(invocation ->
+                invocation.<Function<Integer, List<ReviewSnapshot>>>getArgument(1).apply(1));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.library.service;
+
+import com.example.library.model.Author;
+import com.example.library.model.Book;
+import com.example.library.repository.BookRepository;
+import com.example.library.util.CacheUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SecondaryIndexServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private SecondaryIndexService secondaryIndexService;
+
+    @BeforeEach
+    void setUp() {
+        secondaryIndexService = new SecondaryIndexService(bookRepository,
+                new CacheUtil<>(10), new CacheUtil<>(10));
+    }
+
+    @Test
+    void findBookIdsByTitle_RepeatedLookup_QueriesOnce() {
+        when(bookRepository.findIdsByNormalizedTitle("dune")).thenReturn(List.of(1));
+
+        assertEquals(List.of(1), secondaryIndexService.findBookIdsByTitle("Dune"));
+        assertEquals(List.of(1), secondaryIndexService.findBookIdsByTitle(" DUNE "));
+
+        verify(bookRepository, times(1)).findIdsByNormalizedTitle("dune");
+    }
+
+    @Test
+    void findBookIdsByTitle_EmptyResult_IsCachedUntilInvalidated() {
+        when(bookRepository.findIdsByNormalizedTitle("dune"))
+                .thenReturn(List.of())
+                .thenReturn(List.of(2));
+
+        assertTrue(secondaryIndexService.findBookIdsByTitle("Dune").isEmpty());
+        assertTrue(secondaryIndexService.findBookIdsByTitle("Dune").isEmpty());
+
+        Book book = new Book();
+        book.setTitle("Dune");
+        secondaryIndexService.invalidateBook(book);
+
+        assertEquals(List.of(2), secondaryIndexService.findBookIdsByTitle("Dune"));
+        verify(bookRepository, times(2)).findIdsByNormalizedTitle("dune");
+    }
+
+    @Test
+    void findBookIdsByAuthor_InvalidatedByAuthorChange() {
+        when(bookRepository.findIdsByNormalizedAuthorName("john", "doe"))
+                .thenReturn(List.of(1))
+                .thenReturn(List.of(1, 2));
+
+        assertEquals(List.of(1), secondaryIndexService.findBookIdsByAuthor("John", "Doe"));
+        assertEquals(List.of(1), secondaryIndexService.findBookIdsByAuthor("JOHN", "doe"));
+
+        Author author = new Author();
+        author.setName("John");
+        author.setSurname("Doe");
+        secondaryIndexService.invalidateAuthors(List.of(author));
+
+        assertEquals(List.of(1, 2), secondaryIndexService.findBookIdsByAuthor("John", "Doe"));
+    }
+
+    @Test
+    void findBookIdsByAuthor_AmbiguousSplit_UsesDistinctKeys() {
+        when(bookRepository.findIdsByNormalizedAuthorName("ann", "lee")).thenReturn(List.of(1));
+        when(bookRepository.findIdsByNormalizedAuthorName("an", "nlee")).thenReturn(List.of(2));
+
+        assertEquals(List.of(1), secondaryIndexService.findBookIdsByAuthor("Ann", "Lee"));
+        assertEquals(List.of(2), secondaryIndexService.findBookIdsByAuthor("An", "Nlee"));
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.library.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveCacheSizerTest {
+
+    // Записи занимают около 10 КБ, превышение при 90% заполнения больше половины этого
+    private static final long HEAP = 20_000;
+
+    private final AtomicLong time = new AtomicLong();
+    private AdaptiveCacheSizer sizer;
+    private CacheUtil<Integer, String> cache;
+
+    @BeforeEach
+    void setUp() {
+        sizer = new AdaptiveCacheSizer(0.5, 0.75);
+        sizer.ticker = time::get;
+        cache = new CacheUtil<>(100);
+        sizer.register(cache, 0.25, value -> 4);
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, "v" + i);
+        }
+    }
+
+    @Test
+    void onHeapUsage_AboveHighWatermark_ShrinksAndEvicts() {
+        sizer.onHeapUsage(18_000, HEAP);
+
+        assertEquals(0.5, cache.getCapacityScale());
+        assertEquals(50, cache.size());
+    }
+
+    @Test
+    void onHeapUsage_RepeatedPressure_StopsAtMinimumScale() {
+        for (int i = 0; i < 5; i++) {
+            time.addAndGet(Duration.ofMinutes(1).toNanos());
+            sizer.onHeapUsage(18_000, HEAP);
+        }
+
+        assertEquals(0.25, cache.getCapacityScale());
+        assertEquals(25, cache.size());
+    }
+
+    @Test
+    void onHeapUsage_WithinInterval_IgnoresSecondNotification() {
+        sizer.onHeapUsage(18_000, HEAP);
+        sizer.onHeapUsage(18_000, HEAP);
+
+        assertEquals(0.5, cache.getCapacityScale());
+    }
+
+    @Test
+    void onHeapUsage_BelowLowWatermark_GrowsBackToConfiguredCapacity() {
+        sizer.onHeapUsage(18_000, HEAP);
+        for (int i = 0; i < 10; i++) {
+            time.addAndGet(Duration.ofMinutes(1).toNanos());
+            sizer.onHeapUsage(2_000, HEAP);
+        }
+
+        assertEquals(1.0, cache.getCapacityScale());
+    }
+
+    @Test
+    void onHeapUsage_BetweenWatermarks_KeepsCapacity() {
+        sizer.onHeapUsage(12_000, HEAP);
+
+        assertEquals(1.0, cache.getCapacityScale());
+        assertEquals(100, cache.size());
+    }
+
+    @Test
+    void estimateRetainedBytes_CountsEntries() {
+        assertTrue(sizer.estimateRetainedBytes() >= 100 * 4);
+        assertEquals(sizer.estimateRetainedBytes(), sizer.estimateRetainedBytes("cache"));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.library.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AfterCommitTest {
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+    }
+
+    @Test
+    void run_NoTransaction_RunsImmediately() {
+        List<String> actions = new ArrayList<>();
+
+        AfterCommit.run(() -> actions.add("put"));
+
+        assertEquals(List.of("put"), actions);
+    }
+
+    @Test
+    void run_TransactionCommitted_RunsAfterCommitInOrder() {
+        List<String> actions = new ArrayList<>();
+        TransactionSynchronizationManager.initSynchronization();
+
+        AfterCommit.run(() -> actions.add("invalidate"));
+        AfterCommit.run(() -> actions.add("put"));
+        assertTrue(actions.isEmpty());
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(List.of("invalidate", "put"), actions);
+    }
+
+    @Test
+    void run_TransactionRolledBack_DropsActions() {
+        List<String> actions = new ArrayList<>();
+        TransactionSynchronizationManager.initSynchronization();
+
+        AfterCommit.run(() -> actions.add("put"));
+        TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertTrue(actions.isEmpty());
+    }
+
+    @Test
+    void run_ActionFailsAfterCommit_DoesNotPropagate() {
+        List<String> actions = new ArrayList<>();
+        TransactionSynchronizationManager.initSynchronization();
+
+        AfterCommit.run(() -> {
+            throw new IllegalStateException("cache failure");
+        });
+        AfterCommit.run(() -> actions.add("put"));
+
+        assertDoesNotThrow(() -> TransactionSynchronizationManager.getSynchronizations()
+                .forEach(TransactionSynchronization::afterCommit));
+        assertEquals(List.of("put"), actions);
+    }
+}
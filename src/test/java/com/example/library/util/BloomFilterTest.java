@@ -0,0 +1,44 @@
+package com.example.library.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void mightContain_AddedKeys_AlwaysTrue() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int id = 0; id < 10_000; id++) {
+            filter.put(id);
+        }
+
+        for (int id = 0; id < 10_000; id++) {
+            assertTrue(filter.mightContain(id), "id " + id);
+        }
+    }
+
+    @Test
+    void mightContain_AbsentKeys_FalsePositiveRateNearTarget() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int id = 1; id <= 10_000; id++) {
+            filter.put(id);
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int id = 10_001; id <= 10_000 + probes; id++) {
+            if (filter.mightContain(id)) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / probes;
+        assertTrue(rate < 0.02, "false positive rate " + rate);
+    }
+
+    @Test
+    void constructor_InvalidArguments_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1));
+    }
+}
@@ -0,0 +1,581 @@
+package com.example.library.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheUtilTest {
+
+    @Test
+    void get_AfterPut_ReturnsValue() {
+        CacheUtil<Integer, String> cache = new CacheUtil<>(10);
+        cache.put(1, "one");
+
+        assertEquals("one", cache.get(1));
+        assertNull(cache.get(2));
+    }
+
+    @Test
+    void put_OverCapacity_EvictsLeastRecentlyUsed() {
+        CacheUtil<Integer, String> cache = new CacheUtil<>(3);
+        cache.put(1, "one");
+        cache.put(2, "two");
+        cache.put(3, "three");
+        cache.get(1);
+        cache.cleanUp();
+
+        cache.put(4, "four");
+        cache.cleanUp();
+
+        assertEquals("one", cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals("three", cache.get(3));
+        assertEquals("four", cache.get(4));
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    void put_ExistingKey_ReplacesValue() {
+        CacheUtil<Integer, String> cache = new CacheUtil<>(2);
+        cache.put(1, "one");
+        cache.put(1, "uno");
+        cache.cleanUp();
+
+        assertEquals("uno", cache.get(1));
+        assertEquals(1, cache.policySize());
+    }
+
+    @Test
+    void evict_ExistingKey_RemovesValue() {
+        CacheUtil<Integer, String> cache = new CacheUtil<>(2);
+        cache.put(1, "one");
+        cache.evict(1);
+        cache.evict(2);
+        cache.cleanUp();
+
+        assertNull(cache.get(1));
+        assertEquals(0, cache.policySize());
+    }
+
+    @Test
+    void clear_RemovesAllValues() {
+        CacheUtil<Integer, String> cache = new CacheUtil<>(5);
+        for (int i = 0; i < 5; i++) {
+            cache.put(i, "v" + i);
+        }
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.policySize());
+    }
+
+    @Test
+    void stats_RecordsHitsMissesLoadsAndEvictions() {
+        AtomicLong time = new AtomicLong();
+        CacheUtil<Integer, String> cache = new CacheUtil<>("test", new CacheSettings(
+                EvictionMode.LRU, 2, 0, null, null, Duration.ofSeconds(1)));
+        cache.ticker = time::get;
+        cache.setExecutor(Runnable::run);
+        cache.setLoader(key -> "v" + key);
+        cache.put(1, "one");
+        cache.put(2, "two");
+        cache.put(3, "three");
+        cache.get(3);
+        cache.get(4);
+        time.addAndGet(Duration.ofSeconds(2).toNanos());
+        cache.get(3);
+        cache.cleanUp();
+
+        CacheStats stats = cache.stats();
+        assertEquals(2, stats.hitCount());
+        assertEquals(1, stats.missCount());
+        assertEquals(1, stats.loadSuccessCount());
+        assertEquals(1, stats.evictionCount());
+        assertEquals(2, stats.size());
+        assertEquals(2.0 / 3, stats.hitRate());
+    }
+
+    @Test
+    void get_AfterExpireAfterWrite_ReturnsNull() {
+        AtomicLong time = new AtomicLong();
+        CacheUtil<Integer, String> cache = new CacheUtil<>("test", new CacheSettings(
+                EvictionMode.LRU, 10, 0, Duration.ofMinutes(1), null, null));
+        cache.ticker = time::get;
+        cache.put(1, "one");
+
+        time.addAndGet(Duration.ofSeconds(59).toNanos());
+        assertEquals("one", cache.get(1));
+
+        time.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertNull(cache.get(1));
+        cache.cleanUp();
+        assertEquals(0, cache.policySize());
+    }
+
+    @Test
+    void get_AfterExpireAfterAccess_ReturnsNullOnlyForIdleEntries() {
+        AtomicLong time = new AtomicLong();
+        CacheUtil<Integer, String> cache = new CacheUtil<>("test", new CacheSettings(
+                EvictionMode.TINY_LFU, 10, 0, null, Duration.ofSeconds(10), null));
+        cache.ticker = time::get;
+        cache.put(1, "one");
+        cache.put(2, "two");
+
+        for (int i = 0; i < 3; i++) {
+            time.addAndGet(Duration.ofSeconds(6).toNanos());
+            assertEquals("one", cache.get(1));
+        }
+        cache.cleanUp();
+
+        assertEquals(1, cache.size());
+        assertNull(cache.get(2));
+    }
+
+    @Test
+    void get_AfterRefreshAfterWrite_ReloadsValueWithLoader() {
+        AtomicLong time = new AtomicLong();
+        CacheUtil<Integer, String> cache = new CacheUtil<>("test", new CacheSettings(
+                EvictionMode.LRU, 10, 0, null, null, Duration.ofSeconds(30)));
+        cache.ticker = time::get;
+        cache.setExecutor(Runnable::run);
+        cache.setLoader(key -> key == 1 ? "reloaded" : null);
+        cache.put(1, "one");
+        cache.put(2, "two");
+
+        time.addAndGet(Duration.ofSeconds(31).toNanos());
+        assertEquals("one", cache.get(1));
+        assertEquals("reloaded", cache.get(1));
+
+        assertEquals("two", cache.get(2));
+        assertNull(cache.get(2));
+    }
+
+    @Test
+    void put_OverMaximumWeight_EvictsUntilWithinWeight() {
+        CacheUtil<Integer, String> cache = new CacheUtil<>("test", new CacheSettings(
+                EvictionMode.LRU, 0, 10, null, null, null), String::length);
+        cache.put(1, "aaaa");
+        cache.put(2, "bbbb");
+        cache.put(3, "cccc");
+        cache.cleanUp();
+
+        assertNull(cache.get(1));
+        assertEquals(8, cache.weightedSize());
+    }
+
+    @Test
+    void applySettings_SmallerMaximumAndNewMode_ShrinksCache() {
+        CacheUtil<Integer, String> cache = new CacheUtil<>(100);
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, "v" + i);
+        }
+
+        cache.applySettings(CacheSettings.ofMaximumSize(10, EvictionMode.TINY_LFU));
+
+        assertEquals(10, cache.size());
+        assertEquals(10, cache.policySize());
+        assertEquals(EvictionMode.TINY_LFU, cache.getSettings().mode());
+    }
+
+    @Test
+    void setCapacityScale_ShrinksAndRestoresEffectiveMaximum() {
+        CacheUtil<Integer, String> cache = new CacheUtil<>(10, EvictionMode.TINY_LFU);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, "v" + i);
+        }
+
+        cache.setCapacityScale(0.5);
+        assertEquals(5, cache.size());
+        assertEquals(10, cache.getSettings().maximumSize());
+
+        cache.setCapacityScale(1.0);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, "v" + i);
+        }
+        assertEquals(10, cache.size());
+        assertThrows(IllegalArgumentException.class, () -> cache.setCapacityScale(0));
+    }
+
+    @Test
+    void computeIfAbsent_ConcurrentMisses_LoadOnce() throws Exception {
+        CacheUtil<Integer, String> cache = new CacheUtil<>(10);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> cache.computeIfAbsent(1, key -> {
+                loads.incrementAndGet();
+                loaderStarted.countDown();
+                try {
+                    releaseLoader.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "one";
+            })));
+        }
+        loaderStarted.await(10, TimeUnit.SECONDS);
+        Thread.sleep(100);
+        releaseLoader.countDown();
+
+        for (Future<String> future : futures) {
+            assertEquals("one", future.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        assertEquals(1, loads.get());
+        assertEquals("one", cache.get(1));
+        assertEquals(1, cache.stats().loadSuccessCount());
+    }
+
+    @Test
+    void computeIfAbsent_LoaderReturnsNull_DoesNotCache() {
+        CacheUtil<Integer, String> cache = new CacheUtil<>(10);
+
+        assertNull(cache.computeIfAbsent(1, key -> null));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void computeIfAbsent_LoaderThrows_PropagatesException() {
+        CacheUtil<Integer, String> cache = new CacheUtil<>(10);
+
+        assertThrows(IllegalStateException.class, () -> cache.computeIfAbsent(1, key -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertEquals(1, cache.stats().loadFailureCount());
+        assertEquals("one", cache.computeIfAbsent(1, key -> "one"));
+    }
+
+    @Test
+    void computeIfAbsent_EvictedDuringLoad_DoesNotCacheStaleValue() {
+        CacheUtil<Integer, String> cache = new CacheUtil<>(10);
+
+        String value = cache.computeIfAbsent(1, key -> {
+            cache.evict(1);
+            return "stale";
+        });
+
+        assertEquals("stale", value);
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    void computeAllIfAbsent_LoadsOnlyMissesInOneCall() {
+        CacheUtil<Integer, String> cache = new CacheUtil<>(10);
+        cache.put(1, "one");
+        List<Set<Integer>> calls = new ArrayList<>();
+
+        Map<Integer, String> values = cache.computeAllIfAbsent(List.of(1, 2, 3, 2), keys -> {
+            calls.add(Set.copyOf(keys));
+            return Map.of(2, "two");
+        });
+
+        assertEquals(Map.of(1, "one", 2, "two"), values);
+        assertEquals(List.of(Set.of(2, 3)), calls);
+        assertEquals("two", cache.get(2));
+        assertNull(cache.get(3));
+    }
+
+    @Test
+    void computeAllIfAbsent_EvictedDuringLoad_DoesNotCacheStaleValue() {
+        CacheUtil<Integer, String> cache = new CacheUtil<>(10);
+
+        Map<Integer, String> values = cache.computeAllIfAbsent(List.of(1, 2), keys -> {
+            cache.evict(1);
+            return Map.of(1, "stale", 2, "two");
+        });
+
+        assertEquals(Map.of(1, "stale", 2, "two"), values);
+        assertNull(cache.get(1));
+        assertEquals("two", cache.get(2));
+    }
+
+    @Test
+    void put_WithWriteAge_ExpiresFromOriginalWrite() {
+        AtomicLong time = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+        CacheUtil<Integer, String> cache = new CacheUtil<>("test", new CacheSettings(
+                EvictionMode.LRU, 10, 0, Duration.ofMinutes(10), null, null));
+        cache.ticker = time::get;
+        cache.put(1, "one", Duration.ofMinutes(8));
+        List<Duration> ages = new ArrayList<>();
+        cache.forEachWithAge((key, value, writeAge) -> ages.add(writeAge));
+
+        time.addAndGet(TimeUnit.MINUTES.toNanos(3));
+
+        assertEquals(List.of(Duration.ofMinutes(8)), ages);
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    void computeIfAbsent_StaleWhileRevalidate_ServesStaleAndRefreshes() {
+        AtomicLong time = new AtomicLong();
+        CacheUtil<Integer, String> cache = new CacheUtil<>("test", new CacheSettings(
+                EvictionMode.LRU, 10, 0, Duration.ofMinutes(1), null, null,
+                Duration.ofMinutes(1), null, null));
+        cache.ticker = time::get;
+        List<Runnable> refreshes = new ArrayList<>();
+        cache.setExecutor(refreshes::add);
+        cache.put(1, "old");
+        StaleReads.reset();
+
+        time.addAndGet(Duration.ofSeconds(90).toNanos());
+        assertNull(cache.get(1));
+        assertEquals("old", cache.computeIfAbsent(1, key -> "new"));
+        assertTrue(StaleReads.reset());
+
+        refreshes.forEach(Runnable::run);
+        assertEquals("new", cache.get(1));
+        assertFalse(StaleReads.reset());
+    }
+
+    @Test
+    void computeIfAbsent_StaleIfErrorAndLoaderThrows_ServesStale() {
+        AtomicLong time = new AtomicLong();
+        CacheUtil<Integer, String> cache = new CacheUtil<>("test", new CacheSettings(
+                EvictionMode.LRU, 10, 0, Duration.ofMinutes(1), null, null,
+                null, Duration.ofHours(1), null));
+        cache.ticker = time::get;
+        cache.setExecutor(Runnable::run);
+        cache.put(1, "old");
+
+        time.addAndGet(Duration.ofMinutes(30).toNanos());
+        assertEquals("old", cache.computeIfAbsent(1, key -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertTrue(StaleReads.reset());
+
+        time.addAndGet(Duration.ofMinutes(31).toNanos());
+        assertThrows(IllegalStateException.class, () -> cache.computeIfAbsent(1, key -> {
+            throw new IllegalStateException("db down");
+        }));
+    }
+
+    @Test
+    void computeIfAbsent_LoadExceedsTimeout_ServesStaleAndStoresLaterResult() throws Exception {
+        AtomicLong time = new AtomicLong();
+        CacheUtil<Integer, String> cache = new CacheUtil<>("test", new CacheSettings(
+                EvictionMode.LRU, 10, 0, Duration.ofMinutes(1), null, null,
+                null, Duration.ofHours(1), Duration.ofMillis(50)));
+        cache.ticker = time::get;
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        cache.setExecutor(executor);
+        CountDownLatch release = new CountDownLatch(1);
+        cache.put(1, "old");
+
+        time.addAndGet(Duration.ofMinutes(2).toNanos());
+        try {
+            assertEquals("old", cache.computeIfAbsent(1, key -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "new";
+            }));
+            assertTrue(StaleReads.reset());
+
+            release.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals("new", cache.get(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void computeIfAbsent_StaleEntryDeletedFromDatabase_RemovesIt() {
+        AtomicLong time = new AtomicLong();
+        CacheUtil<Integer, String> cache = new CacheUtil<>("test", new CacheSettings(
+                EvictionMode.LRU, 10, 0, Duration.ofMinutes(1), null, null,
+                null, Duration.ofHours(1), null));
+        cache.ticker = time::get;
+        cache.setExecutor(Runnable::run);
+        cache.put(1, "old");
+
+        time.addAndGet(Duration.ofMinutes(2).toNanos());
+        assertNull(cache.computeIfAbsent(1, key -> null));
+        assertEquals(0, cache.size());
+        StaleReads.reset();
+    }
+
+    @Test
+    void concurrentAccess_Lru_StaysConsistentAndBounded() throws Exception {
+        assertConsistentUnderContention(EvictionMode.LRU);
+    }
+
+    @Test
+    void concurrentAccess_TinyLfu_StaysConsistentAndBounded() throws Exception {
+        assertConsistentUnderContention(EvictionMode.TINY_LFU);
+    }
+
+    private static void assertConsistentUnderContention(EvictionMode mode) throws Exception {
+        int capacity = 128;
+        int threads = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+        int operations = 200_000;
+        CacheUtil<Integer, String> cache = new CacheUtil<>(capacity, mode);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < operations; i++) {
+                    int key = random.nextInt(capacity * 4);
+                    int operation = random.nextInt(100);
+                    if (operation < 80) {
+                        String value = cache.get(key);
+                        if (value != null && !value.equals("v" + key)) {
+                            throw new AssertionError("Неверное значение для ключа " + key);
+                        }
+                    } else if (operation < 97) {
+                        cache.put(key, "v" + key);
+                    } else {
+                        cache.evict(key);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        cache.cleanUp();
+        assertTrue(cache.size() <= capacity, "size " + cache.size());
+        assertEquals(cache.size(), cache.policySize());
+    }
+
+    @Test
+    void pin_PinnedKey_SurvivesScanAndExpiration() {
+        AtomicLong time = new AtomicLong();
+        CacheUtil<Integer, String> cache = new CacheUtil<>("test", new CacheSettings(
+                EvictionMode.TINY_LFU, 10, 0, Duration.ofMinutes(1), null, null));
+        cache.ticker = time::get;
+        cache.pin(1);
+        cache.put(1, "one");
+
+        for (int i = 100; i < 200; i++) {
+            cache.put(i, "v" + i);
+        }
+        time.addAndGet(Duration.ofMinutes(2).toNanos());
+        cache.cleanUp();
+
+        assertEquals("one", cache.get(1));
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.policySize());
+        assertEquals(Set.of(1), cache.getPinnedKeys());
+    }
+
+    @Test
+    void unpin_CachedKey_ReturnsEntryToPolicy() {
+        CacheUtil<Integer, String> cache = new CacheUtil<>(2);
+        cache.put(1, "one");
+        cache.pin(1);
+        cache.put(2, "two");
+        cache.put(3, "three");
+        cache.cleanUp();
+        assertEquals(3, cache.size());
+
+        cache.unpin(1);
+        cache.cleanUp();
+
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.policySize());
+        assertTrue(cache.getPinnedKeys().isEmpty());
+    }
+
+    @Test
+    void invalidate_PinnedKey_RemovesValueButKeepsPin() {
+        CacheUtil<Integer, String> cache = new CacheUtil<>(2);
+        cache.pin(1);
+        cache.put(1, "one");
+
+        cache.invalidate(1);
+        cache.put(1, "uno");
+        cache.put(2, "two");
+        cache.put(3, "three");
+        cache.cleanUp();
+
+        assertEquals("uno", cache.get(1));
+        assertEquals(2, cache.policySize());
+    }
+
+    @Test
+    void tinyLfu_SkewedWorkloadWithScans_HasHigherHitRatioThanLru() {
+        double lru = hitRatio(new CacheUtil<>(500, EvictionMode.LRU));
+        double tinyLfu = hitRatio(new CacheUtil<>(500, EvictionMode.TINY_LFU));
+
+        assertTrue(tinyLfu > lru + 0.05,
+                String.format("W-TinyLFU %.3f, LRU %.3f", tinyLfu, lru));
+    }
+
+    @Test
+    void tinyLfu_WeightBounded_ResistsScansLikeSizeBounded() {
+        CacheSettings byWeight = new CacheSettings(EvictionMode.TINY_LFU, 0, 1_500,
+                null, null, null);
+        double lru = hitRatio(new CacheUtil<>(500, EvictionMode.LRU));
+        double sizeBounded = hitRatio(new CacheUtil<>(500, EvictionMode.TINY_LFU));
+        double weightBounded = hitRatio(new CacheUtil<>("test", byWeight, value -> 3));
+
+        assertTrue(weightBounded > lru + 0.05,
+                String.format("W-TinyLFU по весу %.3f, LRU %.3f", weightBounded, lru));
+        assertEquals(sizeBounded, weightBounded, 0.02);
+    }
+
+    // Zipf-распределение по 20 000 книгам с периодическими сканированиями разовых ключей
+    private static double hitRatio(CacheUtil<Integer, Integer> cache) {
+        int items = 20_000;
+        double[] cumulative = new double[items];
+        double sum = 0;
+        for (int i = 0; i < items; i++) {
+            sum += 1.0 / Math.pow(i + 1, 0.9);
+            cumulative[i] = sum;
+        }
+
+        Random random = new Random(42);
+        int scanKey = items;
+        long hits = 0;
+        long requests = 0;
+        for (int i = 0; i < 300_000; i++) {
+            int key;
+            if (i % 1_000 < 200) {
+                key = scanKey++;
+            } else {
+                int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+                key = index >= 0 ? index : -index - 1;
+            }
+            requests++;
+            if (cache.get(key) != null) {
+                hits++;
+            } else {
+                cache.put(key, key);
+            }
+        }
+        return (double) hits / requests;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.library.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.lang.ref.Reference;
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Сравнение IntKeyCache и CacheUtil с ключами Integer: память на запись и время чтения.
+ * Не входит в задачу test, запускается задачей benchmark. Результаты публикуются через
+ * TestReporter и не проверяются: и память по данным Runtime, и время зависят от машины.
+ */
+@Tag("benchmark")
+class IntKeyCacheBenchmarkTest {
+
+    private static final int ENTRIES = 200_000;
+    private static final int LOOKUPS = 5_000_000;
+    private static final String VALUE = "value";
+
+    @Test
+    void memoryPerEntry_ReportsBytesPerEntry(TestReporter reporter) {
+        long before = usedMemory();
+        CacheUtil<Integer, String> boxed = new CacheUtil<>(ENTRIES);
+        for (int i = 0; i < ENTRIES; i++) {
+            boxed.put(i + 1_000, VALUE);
+        }
+        boxed.cleanUp();
+        long boxedBytes = (usedMemory() - before) / ENTRIES;
+        Reference.reachabilityFence(boxed);
+        boxed = null;
+
+        before = usedMemory();
+        IntKeyCache<String> primitive = new IntKeyCache<>("benchmark", ENTRIES, null);
+        for (int i = 0; i < ENTRIES; i++) {
+            primitive.put(i + 1_000, VALUE);
+        }
+        long primitiveBytes = (usedMemory() - before) / ENTRIES;
+        Reference.reachabilityFence(primitive);
+
+        reporter.publishEntry("CacheUtil, байт на запись", Long.toString(boxedBytes));
+        reporter.publishEntry("IntKeyCache, байт на запись", Long.toString(primitiveBytes));
+    }
+
+    @Test
+    void lookupLatency_ReportsNanosPerGet(TestReporter reporter) {
+        CacheUtil<Integer, String> boxed = new CacheUtil<>(ENTRIES);
+        IntKeyCache<String> primitive = new IntKeyCache<>("benchmark", ENTRIES, null);
+        for (int i = 0; i < ENTRIES; i++) {
+            boxed.put(i, VALUE);
+            primitive.put(i, VALUE);
+        }
+        int[] keys = new Random(42).ints(LOOKUPS, 0, ENTRIES * 2).toArray();
+
+        for (int round = 0; round < 3; round++) {
+            measure(keys, key -> boxed.get(key) != null);
+            measure(keys, key -> primitive.get(key) != null);
+        }
+        double boxedNanos = measure(keys, key -> boxed.get(key) != null);
+        double primitiveNanos = measure(keys, key -> primitive.get(key) != null);
+
+        reporter.publishEntry("CacheUtil, нс на get", String.format("%.1f", boxedNanos));
+        reporter.publishEntry("IntKeyCache, нс на get", String.format("%.1f", primitiveNanos));
+    }
+
+    private static double measure(int[] keys, IntPredicate lookup) {
+        long hits = 0;
+        long start = System.nanoTime();
+        for (int key : keys) {
+            if (lookup.test(key)) {
+                hits++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(hits > 0);
+        return (double) elapsed / keys.length;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
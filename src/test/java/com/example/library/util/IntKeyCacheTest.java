@@ -0,0 +1,166 @@
+package com.example.library.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntKeyCacheTest {
+
+    @Test
+    void get_AfterPut_ReturnsValue() {
+        IntKeyCache<String> cache = new IntKeyCache<>("test", 10, null);
+        cache.put(1, "one");
+        cache.put(-5, "minus five");
+        cache.put(0, "zero");
+
+        assertEquals("one", cache.get(1));
+        assertEquals("minus five", cache.get(-5));
+        assertEquals("zero", cache.get(0));
+        assertNull(cache.get(2));
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    void put_ExistingKey_ReplacesValue() {
+        IntKeyCache<String> cache = new IntKeyCache<>("test", 10, null);
+        cache.put(1, "one");
+        cache.put(1, "uno");
+
+        assertEquals("uno", cache.get(1));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void evict_RemovesOnlyThatKey() {
+        IntKeyCache<String> cache = new IntKeyCache<>("test", 10, null);
+        cache.put(1, "one");
+        cache.put(2, "two");
+        cache.evict(1);
+        cache.evict(3);
+
+        assertNull(cache.get(1));
+        assertEquals("two", cache.get(2));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void put_OverCapacity_EvictsUnreferencedEntriesFirst() {
+        IntKeyCache<Integer> cache = new IntKeyCache<>("test", 4, null);
+        for (int i = 0; i < 4; i++) {
+            cache.put(i, i);
+        }
+        cache.get(0);
+        cache.get(1);
+        cache.put(4, 4);
+        cache.put(5, 5);
+
+        assertEquals(4, cache.size());
+        assertEquals(Integer.valueOf(0), cache.get(0));
+        assertEquals(Integer.valueOf(1), cache.get(1));
+        assertEquals(2, cache.stats().evictionCount());
+    }
+
+    @Test
+    void put_ManyEvictions_KeepsSizeBoundedAndLookupsCorrect() {
+        IntKeyCache<Integer> cache = new IntKeyCache<>("test", 1000, null);
+        for (int i = 0; i < 100_000; i++) {
+            cache.put(i, i);
+            if (i % 7 == 0) {
+                cache.evict(i - 3);
+            }
+        }
+
+        assertTrue(cache.size() <= 1000);
+        assertEquals(Integer.valueOf(99_999), cache.get(99_999));
+        for (int i = 0; i < 100_000; i++) {
+            Integer value = cache.get(i);
+            assertTrue(value == null || value == i);
+        }
+    }
+
+    @Test
+    void get_AfterExpireAfterWrite_ReturnsNull() {
+        AtomicLong time = new AtomicLong();
+        IntKeyCache<String> cache = new IntKeyCache<>("test", 10, Duration.ofSeconds(30));
+        cache.ticker = time::get;
+        cache.put(1, "one");
+
+        time.addAndGet(Duration.ofSeconds(29).toNanos());
+        assertEquals("one", cache.get(1));
+        time.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    void computeIfAbsent_LoadsOnceAndRecordsStats() {
+        IntKeyCache<String> cache = new IntKeyCache<>("test", 10, null);
+
+        assertEquals("v1", cache.computeIfAbsent(1, key -> "v" + key));
+        assertEquals("v1", cache.computeIfAbsent(1, key -> "other"));
+        assertNull(cache.computeIfAbsent(2, key -> null));
+
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.hitCount());
+        assertEquals(2, stats.missCount());
+        assertEquals(2, stats.loadSuccessCount());
+        assertEquals(1, stats.size());
+    }
+
+    @Test
+    void of_UnsupportedSettings_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> IntKeyCache.of("test",
+                new CacheSettings(EvictionMode.LRU, 0, 100, null, null, null)));
+        assertThrows(IllegalArgumentException.class, () -> IntKeyCache.of("test",
+                new CacheSettings(EvictionMode.LRU, 10, 0, null, Duration.ofMinutes(1), null)));
+    }
+
+    @Test
+    void concurrentAccess_StaysConsistentAndBounded() throws Exception {
+        int capacity = 256;
+        int threads = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+        IntKeyCache<Integer> cache = new IntKeyCache<>("test", capacity, null);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 200_000; i++) {
+                    int key = random.nextInt(capacity * 4);
+                    int operation = random.nextInt(100);
+                    if (operation < 80) {
+                        Integer value = cache.get(key);
+                        if (value != null && value != key) {
+                            throw new AssertionError("Неверное значение для ключа " + key);
+                        }
+                    } else if (operation < 97) {
+                        cache.put(key, key);
+                    } else {
+                        cache.evict(key);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertTrue(cache.size() <= capacity, "size " + cache.size());
+    }
+}
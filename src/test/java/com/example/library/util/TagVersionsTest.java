@@ -0,0 +1,53 @@
+package com.example.library.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TagVersionsTest {
+
+    @Test
+    void isCurrent_NoInvalidation_ReturnsTrue() {
+        TagVersions tagVersions = new TagVersions(64);
+        String[] tags = {"book", "book:1"};
+
+        long[] snapshot = tagVersions.snapshot(tags);
+
+        assertTrue(tagVersions.isCurrent(tags, snapshot));
+    }
+
+    @Test
+    void isCurrent_TagInvalidated_ReturnsFalse() {
+        TagVersions tagVersions = new TagVersions(64);
+        String[] tags = {"book", "book:1"};
+        long[] snapshot = tagVersions.snapshot(tags);
+
+        tagVersions.invalidate("book:1");
+
+        assertFalse(tagVersions.isCurrent(tags, snapshot));
+        assertTrue(tagVersions.isCurrent(tags, tagVersions.snapshot(tags)));
+    }
+
+    @Test
+    void isCurrent_OtherTagsInvalidated_MostSnapshotsStayCurrent() {
+        TagVersions tagVersions = new TagVersions(4096);
+        String[] tags = {"author:7"};
+        long[] snapshot = tagVersions.snapshot(tags);
+
+        int stale = 0;
+        for (int i = 0; i < 100; i++) {
+            tagVersions.invalidate("book:" + i);
+            if (!tagVersions.isCurrent(tags, snapshot)) {
+                stale++;
+                snapshot = tagVersions.snapshot(tags);
+            }
+        }
+
+        assertTrue(stale <= 2, "лишних промахов: " + stale);
+    }
+
+    @Test
+    void constructor_StripesNotPowerOfTwo_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> new TagVersions(100));
+    }
+}